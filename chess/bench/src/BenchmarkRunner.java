@@ -0,0 +1,113 @@
+/**
+ * BenchmarkRunner.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Small harness for timing one operation the way JMH does: a few warmup iterations so the jit compiles the code, then
+ * timed iterations that call the operation as many times as fits. Every result goes into a sink so the work can't be
+ * optimized away. Along with operations per second it reports what the gc profiler would, the allocation rate, bytes
+ * allocated per operation and how many garbage collections ran.
+ *
+ */
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.function.LongSupplier;
+
+
+public class BenchmarkRunner {
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private long sink;//results are added here so the jit can't drop the work
+
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1000000;
+    }
+
+    public static void printHeader() {
+        System.out.printf("%-22s %14s %10s %12s %12s %8s %8s%n", "benchmark", "ops/s", "error", "alloc MB/s",
+                "alloc B/op", "gc count", "gc ms");
+    }
+
+    public void run(String name, LongSupplier operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            runIteration(operation, new long[2]);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        double[] opsPerSecond = new double[measurementIterations];
+        long totalOps = 0;
+        long totalNanos = 0;
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTime();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long[] result = new long[2];
+        for (int i = 0; i < measurementIterations; i++) {
+            runIteration(operation, result);
+            opsPerSecond[i] = result[0] * 1e9 / result[1];
+            totalOps += result[0];
+            totalNanos += result[1];
+        }
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        double mean = 0;
+        for (double value : opsPerSecond) {
+            mean += value / measurementIterations;
+        }
+        double variance = 0;
+        for (double value : opsPerSecond) {
+            variance += (value - mean) * (value - mean) / Math.max(1, measurementIterations - 1);
+        }
+        System.out.printf("%-22s %14.1f %10.1f %12.1f %12.1f %8d %8d%n", name, mean, Math.sqrt(variance),
+                bytes / (totalNanos / 1e9) / (1024 * 1024), (double) bytes / totalOps, gcCount() - gcCountBefore,
+                gcTime() - gcTimeBefore);
+    }
+
+    //calls the operation until the iteration time is used, the clock is read less often for fast operations
+    private void runIteration(LongSupplier operation, long[] result) {
+        long ops = 0;
+        long batch = 1;
+        long start = System.nanoTime();
+        long now = start;
+        while (now - start < iterationNanos) {
+            long batchStart = now;
+            for (long i = 0; i < batch; i++) {
+                sink += operation.getAsLong();
+            }
+            ops += batch;
+            now = System.nanoTime();
+            if (now - batchStart < 1000000) {
+                batch *= 2;
+            }
+        }
+        result[0] = ops;
+        result[1] = now - start;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        return time;
+    }
+
+    //printed at the end so the sink is used
+    public long getSink() {
+        return sink;
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * EngineBenchmark.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Benchmarks the hot paths of the engine over a fixed set of positions: the GUI's generateValidMoves for every piece,
+ * the full legal move list for the side to move, isKingInCheck, the evaluation, make and unmake of every legal move and
+ * a fixed depth search. One operation covers all the positions. Builds against ../src and needs no libraries.
+ * From the bench folder run javac -d bin src/*.java ../src/*.java then
+ * java -Djava.awt.headless=true -cp bin EngineBenchmark [name filter] [iteration miliseconds]
+ *
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+
+public class EngineBenchmark {
+    private static final String[] POSITIONS = {
+        Position.START_FEN,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+    };
+    private static final int SEARCH_DEPTH = 5;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final long ITERATION_MILLIS = 1000;
+
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+        long iterationMillis = args.length > 1 ? Long.parseLong(args[1]) : ITERATION_MILLIS;
+
+        Position[] positions = new Position[POSITIONS.length];
+        ChessBoard[] boards = new ChessBoard[POSITIONS.length];
+        Search[] evaluators = new Search[POSITIONS.length];
+        int[][] legalMoves = new int[POSITIONS.length][];
+        for (int i = 0; i < POSITIONS.length; i++) {
+            positions[i] = Position.fromFen(POSITIONS[i]);
+            boards[i] = new ChessBoard();
+            boards[i].drawPieces(POSITIONS[i]);
+            evaluators[i] = new Search(new TranspositionTable(1));
+            evaluators[i].start(positions[i], null);
+            legalMoves[i] = MoveGenerator.generateLegalMoves(positions[i]);
+        }
+        int[] moveBuffer = new int[Move.MAX_MOVES];
+        Engine engine = new Engine();
+        engine.setHashSize(16);
+
+        Map<String, LongSupplier> benchmarks = new LinkedHashMap<>();
+        benchmarks.put("generateValidMoves", () -> {
+            long total = 0;
+            for (ChessBoard board : boards) {
+                String[][] pieces = board.getPieceLocations();
+                boolean white = board.isWhiteTurn();
+                for (int row = 0; row < 8; row++) {
+                    for (int col = 0; col < 8; col++) {
+                        //white pieces have no 1 on the end of their name
+                        if (pieces[row][col] != null && pieces[row][col].endsWith("1") != white) {
+                            total += board.generateValidMoves(row, col).size();
+                        }
+                    }
+                }
+            }
+            return total;
+        });
+        benchmarks.put("generateLegalMoves", () -> {
+            long total = 0;
+            for (Position position : positions) {
+                total += MoveGenerator.generateLegalMoves(position, moveBuffer);
+            }
+            return total;
+        });
+        benchmarks.put("isKingInCheck", () -> {
+            long total = 0;
+            for (ChessBoard board : boards) {
+                total += board.isKingInCheck(true) ? 1 : 0;
+                total += board.isKingInCheck(false) ? 1 : 0;
+            }
+            return total;
+        });
+        benchmarks.put("evaluatePosition", () -> {
+            long total = 0;
+            for (Search evaluator : evaluators) {
+                total += evaluator.evaluatePosition();
+            }
+            return total;
+        });
+        benchmarks.put("makeUnmake", () -> {
+            long total = 0;
+            for (int i = 0; i < positions.length; i++) {
+                Position position = positions[i];
+                for (int move : legalMoves[i]) {
+                    position.makeMove(move);
+                    total += position.key();
+                    position.unmakeMove(move);
+                }
+            }
+            return total;
+        });
+        benchmarks.put("searchDepth" + SEARCH_DEPTH, () -> {
+            long total = 0;
+            for (Position position : positions) {
+                engine.clearHash();
+                total += engine.search(position, SearchLimits.depth(SEARCH_DEPTH)).getBestMove();
+            }
+            return total;
+        });
+
+        BenchmarkRunner runner = new BenchmarkRunner(WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS, iterationMillis);
+        BenchmarkRunner.printHeader();
+        for (Map.Entry<String, LongSupplier> benchmark : benchmarks.entrySet()) {
+            if (benchmark.getKey().contains(filter)) {
+                runner.run(benchmark.getKey(), benchmark.getValue());
+            }
+        }
+        System.out.println("(sink " + runner.getSink() + ")");
+    }
+}
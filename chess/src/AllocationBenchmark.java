@@ -0,0 +1,64 @@
+/**
+ * AllocationBenchmark.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Runs fixed depth searches over a few positions and measures how many bytes the search thread allocates per node.
+ * Each search copies the position once and returns a result, that fixed cost is shown on its own and the rest is divided
+ * by the nodes searched. After warming up the search hot path should print close to 0 bytes per node, only the longer
+ * principal variation of the deeper search is left over. Run with java AllocationBenchmark
+ *
+ */
+
+import java.lang.management.ManagementFactory;
+
+
+public class AllocationBenchmark {
+    private static final String[] POSITIONS = {
+        Position.START_FEN,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+    };
+    private static final int DEPTH = 4;
+    private static final int WARMUP_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        Engine engine = new Engine();
+
+        //let the jit compile the search before measuring
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (String fen : POSITIONS) {
+                engine.clearHash();
+                engine.search(Position.fromFen(fen), SearchLimits.depth(DEPTH));
+            }
+        }
+
+        long totalNodes = 0;
+        long totalBytes = 0;
+        for (String fen : POSITIONS) {
+            Position position = Position.fromFen(fen);//made before measuring, only the search is counted
+
+            //a depth 1 search measures the fixed cost of each search (the private position copy)
+            engine.clearHash();
+            long before = threads.getThreadAllocatedBytes(threadId);
+            engine.search(position, SearchLimits.depth(1));
+            long setupBytes = threads.getThreadAllocatedBytes(threadId) - before;
+
+            engine.clearHash();
+            before = threads.getThreadAllocatedBytes(threadId);
+            engine.search(position, SearchLimits.depth(DEPTH));
+            long bytes = threads.getThreadAllocatedBytes(threadId) - before - setupBytes;
+            long nodes = engine.getNodes();
+            totalNodes += nodes;
+            totalBytes += bytes;
+            System.out.printf("%-75s nodes %9d  per search %6d bytes  per node %.3f bytes%n", fen, nodes, setupBytes,
+                    (double) bytes / nodes);
+        }
+        System.out.printf("Total: %d nodes, %d bytes beyond setup, %.3f bytes/node%n", totalNodes, totalBytes,
+                (double) totalBytes / totalNodes);
+    }
+}
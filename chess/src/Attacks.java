@@ -0,0 +1,195 @@
+/**
+ * Attacks.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Precomputed attack tables built once when the class loads. Knights, kings and pawns use a lookup per square and
+ * rooks and bishops use magic bitboards, so a slider attack is a mask, a multiply, a shift and an array read.
+ *
+ */
+
+public final class Attacks {
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long FILE_H = FILE_A << 7;
+    private static final long RANK_1 = 0xFFL;
+    private static final long RANK_8 = RANK_1 << 56;
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    //squares between two squares and the whole line through them, empty if they don't share a line
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    //magic bitboard tables for each square
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    //fixed seeds per rank that find magics in few tries, so the same magics are found every run
+    private static final long[] RANK_SEEDS = {728, 10316, 55013, 32803, 12281, 15100, 16645, 255};
+    private static long seed;
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            long bit = 1L << sq;
+            KNIGHT[sq] = knightAttacks(bit);
+            KING[sq] = kingAttacks(bit);
+            PAWN[Position.WHITE][sq] = pawnAttacks(Position.WHITE, bit);
+            PAWN[Position.BLACK][sq] = pawnAttacks(Position.BLACK, bit);
+            initMagic(sq, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_TABLE);
+            initMagic(sq, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_TABLE);
+        }
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                long bits = (1L << a) | (1L << b);
+                if (a != b && (rook(a, 0L) & (1L << b)) != 0) {
+                    BETWEEN[a][b] = rook(a, 1L << b) & rook(b, 1L << a);
+                    LINE[a][b] = (rook(a, 0L) & rook(b, 0L)) | bits;
+                } else if (a != b && (bishop(a, 0L) & (1L << b)) != 0) {
+                    BETWEEN[a][b] = bishop(a, 1L << b) & bishop(b, 1L << a);
+                    LINE[a][b] = (bishop(a, 0L) & bishop(b, 0L)) | bits;
+                }
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    //table lookups used by move generation and attack checks
+    public static long knight(int sq) { return KNIGHT[sq]; }
+    public static long king(int sq) { return KING[sq]; }
+    public static long pawn(int color, int sq) { return PAWN[color][sq]; }
+    public static long between(int a, int b) { return BETWEEN[a][b]; }
+    public static long line(int a, int b) { return LINE[a][b]; }
+
+    public static long rook(int sq, long occupied) {
+        return ROOK_TABLE[sq][(int) (((occupied & ROOK_MASKS[sq]) * ROOK_MAGICS[sq]) >>> ROOK_SHIFTS[sq])];
+    }
+
+    public static long bishop(int sq, long occupied) {
+        return BISHOP_TABLE[sq][(int) (((occupied & BISHOP_MASKS[sq]) * BISHOP_MAGICS[sq]) >>> BISHOP_SHIFTS[sq])];
+    }
+
+    public static long queen(int sq, long occupied) {
+        return rook(sq, occupied) | bishop(sq, occupied);
+    }
+
+    //attacks of a whole set of pawns at once
+    public static long pawnAttacks(int color, long pawns) {
+        if (color == Position.WHITE) {
+            return ((pawns << 7) & ~FILE_H) | ((pawns << 9) & ~FILE_A);
+        }
+        return ((pawns >>> 9) & ~FILE_H) | ((pawns >>> 7) & ~FILE_A);
+    }
+
+    private static long knightAttacks(long knights) {
+        long notA = ~FILE_A;
+        long notH = ~FILE_H;
+        long notAB = ~(FILE_A | (FILE_A << 1));
+        long notGH = ~((FILE_A << 6) | FILE_H);
+        return ((knights << 17) & notA) | ((knights << 15) & notH)
+             | ((knights << 10) & notAB) | ((knights << 6) & notGH)
+             | ((knights >>> 17) & notH) | ((knights >>> 15) & notA)
+             | ((knights >>> 10) & notGH) | ((knights >>> 6) & notAB);
+    }
+
+    private static long kingAttacks(long kings) {
+        long sideways = ((kings << 1) & ~FILE_A) | ((kings >>> 1) & ~FILE_H);
+        long row = kings | sideways;
+        return sideways | (row << 8) | (row >>> 8);
+    }
+
+    //finds a magic number for one square and fills its attack table
+    private static void initMagic(int sq, int[][] directions, long[] masks, long[] magics, int[] shifts, long[][] table) {
+        //edge squares don't change the attacks so they are left out of the mask
+        long edges = ((RANK_1 | RANK_8) & ~rankMask(sq)) | ((FILE_A | FILE_H) & ~fileMask(sq));
+        long mask = slidingAttacks(sq, 0L, directions) & ~edges;
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+
+        //every blocker setup for the mask and the attacks it gives
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+        long subset = 0L;
+        for (int i = 0; i < size; i++) {
+            occupancies[i] = subset;
+            attacks[i] = slidingAttacks(sq, subset, directions);
+            subset = (subset - mask) & mask;
+        }
+
+        seed = RANK_SEEDS[sq >> 3];
+        long[] entries = new long[size];
+        int[] usedInTry = new int[size];
+        int attempt = 0;
+        long magic;
+        boolean found;
+        do {
+            attempt++;
+            magic = sparseRandom();
+            //skip magics that can't spread the mask bits into the top of the index
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+                found = false;
+                continue;
+            }
+            found = true;
+            for (int i = 0; i < size && found; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+                if (usedInTry[index] != attempt) {
+                    usedInTry[index] = attempt;
+                    entries[index] = attacks[i];
+                } else if (entries[index] != attacks[i]) {
+                    found = false;
+                }
+            }
+        } while (!found);
+
+        masks[sq] = mask;
+        magics[sq] = magic;
+        shifts[sq] = 64 - bits;
+        table[sq] = entries;
+    }
+
+    //walks each direction until it hits a piece or the edge, only used to build the tables
+    private static long slidingAttacks(int sq, long occupied, int[][] directions) {
+        long attacks = 0L;
+        for (int[] direction : directions) {
+            int rank = (sq >> 3) + direction[0];
+            int file = (sq & 7) + direction[1];
+            while (rank >= 0 && rank < 8 && file >= 0 && file < 8) {
+                long bit = 1L << (rank * 8 + file);
+                attacks |= bit;
+                if ((occupied & bit) != 0) break;
+                rank += direction[0];
+                file += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static long rankMask(int sq) { return RANK_1 << (sq & ~7); }
+    private static long fileMask(int sq) { return FILE_A << (sq & 7); }
+
+    //xorshift random numbers, and-ing three together gives the few set bits good magics have
+    private static long sparseRandom() {
+        return nextRandom() & nextRandom() & nextRandom();
+    }
+
+    private static long nextRandom() {
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 2685821657736338717L;
+    }
+}
@@ -4,32 +4,44 @@
  * Divyam Banga
  * ICS4U, Mr. Mckenzie
  * 
- * Extends from chess board and builds on it by adding an AI opponet that calculates moves using minimax algorithm and
- * alpha beta pruning to improve efficiency. Currently set to calculate for 5 seconds before making a move, searches as many 
- * depths as it can in 5 seconds and makes the best move found.
+ * Extends from chess board and builds on it by adding an AI opponet. The searching is done by Engine, this class only
+ * decides when the computer thinks, for how long, and plays the move found on the board. How long it thinks comes from the time
+ * left on its clock in the game window, without a clock it thinks for 5 seconds a move. After moving it ponders, it
+ * searches the reply it expects on the players time and if that reply is played it keeps going from there. Searches run
+ * on a SearchService that lives as long as the board and is shut down when the game ends. Each search gets a snapshot of
+ * the position and never touches the board, its result comes back as a searchFinished event on the event thread and
+ * only then is the move played, so painting never sees a half searched position.
  * 
  */
 
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.beans.PropertyChangeSupport;
 import java.beans.PropertyChangeListener;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 
 public class ChessBoardComputer extends ChessBoard {
     public boolean isComputerWhite;
-    private static final long TIME_LIMIT = 5000; //5 seconds in miliseconds
-    private long startTime;
-    private boolean timeUp;
-    private Move bestMoveSoFar;//track best move found 
+    private static final long TIME_LIMIT = 5000; //5 seconds in miliseconds, used when there is no clock
     public int count = 0;
     private PropertyChangeSupport pcs = new PropertyChangeSupport(this);//UI stuff(found on stack overflow)
     private int lastSearchDepth = 0;
+    private int pendingPromotion = Position.QUEEN;//piece the search picked when its move promotes
+    private final Engine engine = new Engine();
+    private final SearchService searchService = new SearchService(engine);
+    private boolean closed;//game over, results still coming in are ignored
+
+    //pondering, after moving the position after the expected reply is searched until the player moves
+    private boolean ponderingEnabled = true;
+    private boolean pondering;
+    private long ponderKey;//position after the expected reply
+    private CompletableFuture<SearchResult> ponderSearch;
+    private int ponderAttempts;
+    private int ponderHits;
 
     //variables to highlight compouters moves
     private Point lastMoveFrom;
@@ -42,6 +54,20 @@ public class ChessBoardComputer extends ChessBoard {
     public ChessBoardComputer(boolean playAsWhite) {
         super();
         this.isComputerWhite = !playAsWhite;
+        //progress after every depth, coalesced and sent on to the event thread as searchInfo events
+        engine.setInfoListener(new SearchInfoChannel(info -> {
+            if (!closed) {
+                pcs.firePropertyChange("searchInfo", null, info);
+            }
+        }));
+        pcs.addPropertyChangeListener("searchFinished", evt -> playComputerMove((SearchResult) evt.getNewValue()));
+        //the base board fires moveMade for every move but only to its own listeners, the players moves are passed on so
+        //the clocks switch on every move, the computers own moves come from announceMove with the search depth
+        super.addPropertyChangeListener("moveMade", evt -> {
+            if (isWhiteTurn() != isComputerWhite) {
+                pcs.firePropertyChange("moveMade", null, evt.getNewValue());
+            }
+        });
     }
 
     //UI stuff found online
@@ -58,6 +84,88 @@ public class ChessBoardComputer extends ChessBoard {
         return lastSearchDepth;
     }
 
+    //the search behind the board, its settings should only be changed with no game running, the setters here are safe
+    //any time since they run between searches
+    public Engine getEngine() {
+        return engine;
+    }
+
+    //transposition table size in megabytes, clears what was stored
+    public void setHashSize(int megabytes) {
+        configure(engine -> engine.setHashSize(megabytes));
+    }
+
+    //percent of transposition table probes in the last search that found an entry
+    public double getHashHitRate() {
+        return engine.getHashHitRate();
+    }
+
+    public void clearHash() {
+        configure(Engine::clearHash);
+    }
+
+    //positions visited by the last search
+    public long getNodes() {
+        return engine.getNodes();
+    }
+
+    //number of search threads, one main search and the rest helpers
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one search thread");
+        }
+        configure(engine -> engine.setThreads(threads));
+    }
+
+    //the engine is only changed on the search thread between searches, pondering is dropped so the change isn't stuck
+    //behind a search with no end
+    private void configure(Consumer<Engine> change) {
+        stopPondering();
+        searchService.configure(change);
+    }
+
+    public int getThreads() {
+        return engine.getThreads();
+    }
+
+    //percent of pawn structure lookups in the last search that were already in the pawn hash table
+    public double getPawnHashHitRate() {
+        return engine.getPawnHashHitRate();
+    }
+
+    //search on the players time, on by default
+    public void setPondering(boolean enabled) {
+        ponderingEnabled = enabled;
+        if (!enabled) {
+            stopPondering();
+        }
+    }
+
+    //stops searching on the players time, the transposition table keeps what was found
+    public void stopPondering() {
+        if (pondering) {
+            pondering = false;
+            searchService.cancelAll();
+        }
+    }
+
+    //game over or window closed, drops any search right away and ends the search thread
+    public void shutdown() {
+        closed = true;
+        pondering = false;
+        searchService.shutdown();
+    }
+
+    //percent of the players moves that were the reply the computer pondered on
+    public double getPonderHitRate() {
+        return ponderAttempts == 0 ? 0 : 100.0 * ponderHits / ponderAttempts;
+    }
+
+    //percent of beta cutoffs in the last search that came from the first move tried
+    public double getFirstMoveCutoffRate() {
+        return engine.getFirstMoveCutoffRate();
+    }
+
     //for move highlighting
     @Override
     protected void paintComponent(Graphics g) {
@@ -82,7 +190,7 @@ public class ChessBoardComputer extends ChessBoard {
     @Override
     public String handlePawnPromotion(int row, int col, boolean isWhite) {
         if (isWhite == isComputerWhite) {
-            return isWhite ? "queen" : "queen1";
+            return getPieceName(isWhite ? Position.WHITE : Position.BLACK, pendingPromotion);
         }
         return super.handlePawnPromotion(row, col, isWhite);
     }
@@ -105,299 +213,127 @@ public class ChessBoardComputer extends ChessBoard {
         
         super.handleMouseClick(click);
         
+        //the players move may have ended the game, the window shuts the board down on mate, there is nothing to search
+        if (closed || MoveGenerator.generateLegalMoves(getPosition()).length == 0) {
+            stopPondering();
+            count = 0;
+            return;
+        }
+
         //if turn changed to computer turn, start computer move
         if (initialTurn != isWhiteTurn() && isWhiteTurn() == isComputerWhite) {
             repaint();
             pcs.firePropertyChange("computerThinking", false, true);
-    
-            //run computer move in seperate thread so doesn't freeze/ lags (Used some AI to help with this and Ario)
-            new Thread(() -> {
-                makeComputerMove();
-                SwingUtilities.invokeLater(() -> pcs.firePropertyChange("computerThinking", true, false));
-            }).start();
-        }
-        count = 0;
-    }
-    
-    private void makeComputerMove() {
-        Move bestMove = findBestMove();
-        if (bestMove != null) {
-            //store the move coordinates for highlighting
-            lastMoveFrom = new Point(bestMove.fromCol, bestMove.fromRow);
-            lastMoveTo = new Point(bestMove.toCol, bestMove.toRow);
-
-            //simulate computer move as clicks
-            SwingUtilities.invokeLater(() -> {
-                Point originalClick = new Point(bestMove.fromCol * getTileSize() + getTileSize() / 2,
-                        bestMove.fromRow * getTileSize() + getTileSize() / 2);
-                super.handleMouseClick(originalClick);
-
-                Point targetClick = new Point(bestMove.toCol * getTileSize() + getTileSize() / 2,
-                        bestMove.toRow * getTileSize() + getTileSize() / 2);
-                super.handleMouseClick(targetClick);
-                
-                repaint();
-            });
-        }
-    }
-
-    //Iterative deepening to find best move in 5 seconds
-    private Move findBestMove() {
-        startTime = System.currentTimeMillis();
-        timeUp = false;
-        bestMoveSoFar = null;
-        int depth = 1;
-
-        //keep searching until time runs out
-        while (!timeUp) {
-            System.out.println("Searching depth: " + depth);
-            Move move = searchAtDepth(depth);
-
-            if (!timeUp) {
-                bestMoveSoFar = move;
-                lastSearchDepth = depth;
-                System.out.println("Completed depth " + depth + " search");
-                depth++;
-            }
-
-            if (System.currentTimeMillis() - startTime >= TIME_LIMIT) {
-                timeUp = true;
-                System.out.println("Time up! Reached depth: " + (depth - 1));
-            }
-        }
-
-        //convert to move notation to display on side window
-        if (bestMoveSoFar != null) {
-            String moveNotation = String.format("%c%d to %c%d",
-                    (char) ('a' + bestMoveSoFar.fromCol), 8 - bestMoveSoFar.fromRow,
-                    (char) ('a' + bestMoveSoFar.toCol), 8 - bestMoveSoFar.toRow);
-            pcs.firePropertyChange("moveMade", null, moveNotation);
-        }
-
-        return bestMoveSoFar;
-    }
-
-    //searches at a specific depth using minimax algorithm
-    private Move searchAtDepth(int depth) {
-        Move bestMove = null;
-        int bestValue = Integer.MIN_VALUE;
-        int alpha = Integer.MIN_VALUE;
-        int beta = Integer.MAX_VALUE;
-
-        //make board copy to change
-        String[][] boardCopy = copyBoard();
-        List<Move> possibleMoves = getAllPossibleMoves(isComputerWhite);
-
-        
-        for (Move move : possibleMoves) {
-            //if out of time return the best move found
-            if (timeUp) {
-                return bestMoveSoFar;
-            }
-            makeMove(move);//simulate move
-            if (checkmate(!isComputerWhite)) {
-                undoMove(move, boardCopy);
-                return move; //immediate checkmate
-            }
-
-            //use recursion to evaluate position
-            int value = minimax(depth - 1, false, alpha, beta);
-            undoMove(move, boardCopy);
-
-            //check for time again
-            if (timeUp) {
-                return bestMoveSoFar;
-            }
-
-            //update best move if betetr
-            if (value > bestValue) {
-                bestValue = value;
-                bestMove = move;
-            }
-            //update alpha for pruning
-            alpha = Math.max(alpha, bestValue);
-
-            //final time check before moving in
-            if (System.currentTimeMillis() - startTime >= TIME_LIMIT) {
-                timeUp = true;
-                return bestMoveSoFar;
-            }
-        }
-        return bestMove;
-    }
-
-    //recursively evaluates positions and evaluates them using evaluate function
-    private int minimax(int depth, boolean isMaximizing, int alpha, int beta) {
-        //check for time
-        if (System.currentTimeMillis() - startTime >= TIME_LIMIT) {
-            timeUp = true;
-            return evaluatePosition();
-        }
-
-        //base case
-        if (depth == 0) {
-            count++;
-            return evaluatePosition();
-        }
-
-        List<Move> moves = getAllPossibleMoves(isMaximizing ? isComputerWhite : !isComputerWhite);
-
-        if (moves.isEmpty()) {
-            if (checkmate(isMaximizing ? isComputerWhite : !isComputerWhite)) {
-                return isMaximizing ? -10000 : 10000;
-            }
-            return 0; //stalemate
-        }
-
-        String[][] boardCopy = copyBoard();
-
-        if (isMaximizing) {
-            int maxEval = Integer.MIN_VALUE;
-            for (Move move : moves) {
-                if (timeUp) return maxEval;
-
-                makeMove(move);
-                int eval = minimax(depth - 1, false, alpha, beta);//recursively evaluate position after the move
-                undoMove(move, boardCopy);
-
-                maxEval = Math.max(maxEval, eval);
-                alpha = Math.max(alpha, eval);
-                //if we have a better path, eliminate all possibilies or like series of moves
-                if (beta <= alpha) {
-                    break;
+            SearchLimits limits = searchLimits();
+
+            //a ponder hit lets the running search carry on with the real time limits, a miss stops it
+            CompletableFuture<SearchResult> search = null;
+            if (pondering) {
+                pondering = false;
+                ponderAttempts++;
+                boolean ponderHit = getPosition().key() == ponderKey;
+                if (ponderHit) {
+                    ponderHits++;
+                    searchService.ponderHit(limits);
+                    search = ponderSearch;
+                } else {
+                    searchService.cancelAll();//it may not have even started yet
                 }
             }
-            return maxEval;
-        } else {
-            //next turn
-            int minEval = Integer.MAX_VALUE;
-            for (Move move : moves) {
-                if (timeUp) return minEval;
-
-                makeMove(move);
-                int eval = minimax(depth - 1, true, alpha, beta);//recursively evaluate position after the move
-                undoMove(move, boardCopy);
-
-                minEval = Math.min(minEval, eval);
-                beta = Math.min(beta, eval);
-                //make sure this path wont be chosen
-                if (beta <= alpha) {
-                    break;
-                }
+            if (search == null) {
+                search = searchService.search(getPositionSnapshot(), limits);
             }
-            return minEval;
-        }
-    }
 
-    //gets all possible moves at a given position
-    private List<Move> getAllPossibleMoves(boolean forWhite) {
-        List<Move> allMoves = new ArrayList<>();
-        for (int row = 0; row < getBoardSize(); row++) {
-            for (int col = 0; col < getBoardSize(); col++) {
-                String piece = getPieceLocations()[row][col];
-                if (piece != null && (!piece.endsWith("1") == forWhite)) {
-                    List<Point> validMoves = generateValidMoves(row, col);
-                    for (Point move : validMoves) {
-                        allMoves.add(new Move(row, col, move.y, move.x));
-                    }
+            //search runs on the search service so the board doesn't freeze, the result is handed back on the event thread
+            search.whenComplete((result, error) -> {
+                if (result != null) {
+                    SwingUtilities.invokeLater(() -> pcs.firePropertyChange("searchFinished", null, result));
+                } else if (!(error instanceof CancellationException || error.getCause() instanceof CancellationException)) {
+                    error.printStackTrace();
                 }
-            }
+            });
         }
-        return allMoves;
+        count = 0;
     }
 
-    //evaluates a position using piece positions, and piece values
-    private int evaluatePosition() {
-        int totalScore = 0;
-        String[][] board = getPieceLocations();
-
-        //basic piece values
-        Map<String, Integer> pieceValues = new HashMap<>();
-        pieceValues.put("pawn", 100);
-        pieceValues.put("knight", 320);
-        pieceValues.put("bishop", 330);
-        pieceValues.put("rook", 500);
-        pieceValues.put("queen", 900);
-        pieceValues.put("king", 20000);
-
-        //gets position bonus for all the pieces
-        for (int row = 0; row < getBoardSize(); row++) {
-            for (int col = 0; col < getBoardSize(); col++) {
-                String piece = board[row][col];
-                if (piece != null) {
-                    String basePiece = piece.replace("1", "");
-                    int value = pieceValues.get(basePiece);
-                    value += getPositionalBonus(basePiece, row, col, piece.endsWith("1"));
-                    if (!piece.endsWith("1") == isComputerWhite) {
-                        totalScore += value;
-                    } else {
-                        totalScore -= value;
-                    }
-                }
-            }
+    //searchFinished listener, on the event thread, a result that shows up after the game ended or the turn passed is stale
+    private void playComputerMove(SearchResult result) {
+        if (closed || isWhiteTurn() != isComputerWhite) {
+            return;
         }
-
-        return totalScore;
+        announceMove(result);
+        //pondering is queued before the move reaches the board so the players reply always finds it
+        startPondering(result);
+        makeComputerMove(result.getBestMove());
+        pcs.firePropertyChange("computerThinking", true, false);
     }
 
-    //returns bonus points depending in position of pieces
-    private int getPositionalBonus(String piece, int row, int col, boolean isBlack) {
-        if (isBlack) {
-            row = 7 - row;
+    //time left on the computers clock in the game window and the increment, a fixed time a move without one
+    private SearchLimits searchLimits() {
+        GameWindow window = getGameWindow();
+        long timeLeft = window != null ? window.getTimeLeftMillis(isComputerWhite) : 0;
+        if (timeLeft <= 0) {
+            return SearchLimits.moveTime(TIME_LIMIT);
         }
-        switch (piece) {
-            case "pawn":
-                return 10 * (7 - row);//pawns worth more as they advance
-            case "knight":
-                return (int) ((Math.abs(col - 3.5) + Math.abs(row - 3.5)) * -5);//knights better in center
-            case "bishop":
-                return (int) ((Math.abs(col - 3.5) + Math.abs(row - 3.5)) * -3);//bishops better in center
-            case "rook":
-                return col == 3 || col == 4 ? 10 : 0;//rooks better in central columns
-            case "queen":
-                return (int) ((Math.abs(col - 3.5) + Math.abs(row - 3.5)) * -2);//queen slightly better in center
-            case "king":
-                if (row < 2) {
-                    return 20;//king better in the back
-                }
-                return 0;
-            default:
-                return 0;
-        }
-    }
-
-    //helper method to make move
-    private void makeMove(Move move) {
-        String piece = getPieceLocations()[move.fromRow][move.fromCol];
-        getPieceLocations()[move.toRow][move.toCol] = piece;
-        getPieceLocations()[move.fromRow][move.fromCol] = null;
+        int side = isComputerWhite ? Position.WHITE : Position.BLACK;
+        SearchLimits limits = new SearchLimits();
+        limits.setTimeLeft(side, timeLeft);
+        limits.setIncrement(side, window.getIncrementMillis());
+        return limits;
     }
 
-    //helper method to undow move
-    private void undoMove(Move move, String[][] originalBoard) {
-        for (int i = 0; i < getBoardSize(); i++) {
-            System.arraycopy(originalBoard[i], 0, getPieceLocations()[i], 0, getBoardSize());
+    //plays the move and the expected reply on a copy and searches it with no limit until the player moves
+    private void startPondering(SearchResult result) {
+        if (!ponderingEnabled || result.getBestMove() == Move.NONE || result.getPonderMove() == Move.NONE) {
+            return;
         }
+        Position position = getPositionSnapshot();
+        position.makeMove(result.getBestMove());
+        position.makeMove(result.getPonderMove());
+        SearchLimits limits = new SearchLimits();
+        limits.setPonder(true);
+        ponderSearch = searchService.search(position, limits);
+        ponderKey = position.key();
+        pondering = true;
     }
+    
+    private void makeComputerMove(int bestMove) {
+        if (bestMove != Move.NONE) {
+            int fromRow = Position.row(Move.from(bestMove));
+            int fromCol = Position.col(Move.from(bestMove));
+            int toRow = Position.row(Move.to(bestMove));
+            int toCol = Position.col(Move.to(bestMove));
+            pendingPromotion = Move.promotion(bestMove) != Position.NO_PIECE ? Move.promotion(bestMove) : Position.QUEEN;
 
-    //helper method to create a copy of the board
-    private String[][] copyBoard() {
-        String[][] copy = new String[getBoardSize()][getBoardSize()];
-        for (int i = 0; i < getBoardSize(); i++) {
-            System.arraycopy(getPieceLocations()[i], 0, copy[i], 0, getBoardSize());
+            //store the move coordinates for highlighting
+            lastMoveFrom = new Point(fromCol, fromRow);
+            lastMoveTo = new Point(toCol, toRow);
+
+            //simulate computer move as clicks
+            Point originalClick = new Point(fromCol * getTileSize() + getTileSize() / 2,
+                    fromRow * getTileSize() + getTileSize() / 2);
+            super.handleMouseClick(originalClick);
+
+            Point targetClick = new Point(toCol * getTileSize() + getTileSize() / 2,
+                    toRow * getTileSize() + getTileSize() / 2);
+            super.handleMouseClick(targetClick);
+            
+            repaint();
         }
-        return copy;
     }
 
-    //helper class to represent move
-    private static class Move {
-        int fromRow, fromCol, toRow, toCol;
-
-        public Move(int fromRow, int fromCol, int toRow, int toCol) {
-            this.fromRow = fromRow;
-            this.fromCol = fromCol;
-            this.toRow = toRow;
-            this.toCol = toCol;
+    //convert to move notation to display on side window
+    private void announceMove(SearchResult result) {
+        int bestMove = result.getBestMove();
+        lastSearchDepth = result.getDepth();
+        count = (int) engine.getLeaves();
+        if (bestMove != Move.NONE) {
+            int from = Move.from(bestMove);
+            int to = Move.to(bestMove);
+            String moveNotation = String.format("%c%d to %c%d",
+                    (char) ('a' + Position.col(from)), 8 - Position.row(from),
+                    (char) ('a' + Position.col(to)), 8 - Position.row(to));
+            pcs.firePropertyChange("moveMade", null, moveNotation);
         }
     }
 
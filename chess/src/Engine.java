@@ -0,0 +1,314 @@
+/**
+ * Engine.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * The engine without any of the board drawing: give it a Position and SearchLimits and it returns a SearchResult. Runs
+ * the main search on the calling thread and any helper threads (lazy smp) on a pool, all sharing one transposition
+ * table kept between searches. Nothing here touches swing or awt so it can run on a server with no display and
+ * starts without loading any images. A search can be started on one thread and run on another, once start returns
+ * stop and ponderHit from any thread are sure to reach it.
+ *
+ */
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+
+public class Engine {
+    public static final int DEFAULT_HASH_SIZE = 64;//megabytes
+
+    private final TranspositionTable transpositionTable = new TranspositionTable(DEFAULT_HASH_SIZE);//kept for the whole game
+    private final TimeManager timeManager = new TimeManager();
+
+    //lazy smp, searches[0] runs on the calling thread and the rest are helpers sharing the transposition table
+    private Search[] searches;
+    private ExecutorService helperPool;
+    private Future<?>[] helperResults;
+    private boolean nullMovePruning = true;
+    private boolean lateMoveReductions = true;
+    private boolean futilityPruning = true;
+    private boolean razoring = true;
+    private boolean verbose;//prints each depth and the stats to the console
+    private Consumer<SearchInfo> infoListener;//told about every finished depth, on the search thread
+
+    private volatile boolean pondering;//searching with no limit until ponderHit or stop
+    private Position root;//position being searched, only read if no depth finishes
+    private int searchSide;//side to move in the position being searched
+    private SearchLimits limits;
+    private long startTime;//the time manager restarts its clock on a ponder hit, this doesn't
+
+    //stats of the last search
+    private long nodes;
+    private long leaves;
+    private double hashHitRate;
+    private double firstMoveCutoffRate;
+    private double pawnHashHitRate;
+
+    public Engine() {
+        setThreads(1);
+    }
+
+    //transposition table size in megabytes, clears what was stored
+    public void setHashSize(int megabytes) {
+        transpositionTable.resize(megabytes);
+    }
+
+    public void clearHash() {
+        transpositionTable.clear();
+    }
+
+    //number of search threads, one main search and the rest helpers
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one search thread");
+        }
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+            helperPool = null;
+        }
+        searches = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new Search(transpositionTable);
+        }
+        applySearchSettings();
+        helperResults = new Future<?>[threads - 1];
+        if (threads > 1) {
+            helperPool = Executors.newFixedThreadPool(threads - 1, task -> {
+                Thread thread = new Thread(task, "search-helper");
+                thread.setDaemon(true);//don't keep the program open
+                return thread;
+            });
+        }
+    }
+
+    public int getThreads() {
+        return searches.length;
+    }
+
+    //switches for the selective search, all on by default
+    public void setNullMovePruning(boolean enabled) {
+        nullMovePruning = enabled;
+        applySearchSettings();
+    }
+
+    public void setLateMoveReductions(boolean enabled) {
+        lateMoveReductions = enabled;
+        applySearchSettings();
+    }
+
+    public void setFutilityPruning(boolean enabled) {
+        futilityPruning = enabled;
+        applySearchSettings();
+    }
+
+    public void setRazoring(boolean enabled) {
+        razoring = enabled;
+        applySearchSettings();
+    }
+
+    private void applySearchSettings() {
+        for (Search search : searches) {
+            search.setNullMovePruning(nullMovePruning);
+            search.setLateMoveReductions(lateMoveReductions);
+            search.setFutilityPruning(futilityPruning);
+            search.setRazoring(razoring);
+        }
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    //called with the progress after every finished depth, on the search thread so it should be quick
+    public void setInfoListener(Consumer<SearchInfo> infoListener) {
+        this.infoListener = infoListener;
+    }
+
+    //searches the position on the calling thread until a limit is reached or stop is called
+    public SearchResult search(Position start, SearchLimits limits) {
+        start(start, limits);
+        return run();
+    }
+
+    //gets a search ready and starts the helpers, returns at once, run does the searching
+    public void start(Position start, SearchLimits limits) {
+        this.limits = limits;
+        startTime = System.currentTimeMillis();
+        root = start;
+        searchSide = start.sideToMove();
+        startTimeManager(limits);
+        pondering = limits.isPonder();
+        transpositionTable.newSearch();
+        searches[0].start(start, timeManager, limits.getNodes());
+        for (int i = 1; i < searches.length; i++) {
+            Search helper = searches[i];
+            int firstDepth = 1 + (i & 1);
+            helper.start(start, null);
+            helperResults[i - 1] = helperPool.submit(() -> helper.runHelper(firstDepth));
+        }
+    }
+
+    //the main search deepens on the calling thread until a limit is reached or stop is called while the helpers search
+    //the same position on the pool and fill the shared transposition table, the main search's move is played
+    public SearchResult run() {
+        Search main = searches[0];
+        int maxDepth = limits.getDepth();
+        int depth = 1;
+        while (!main.isStopped() && depth <= maxDepth) {
+            if (verbose) System.out.println("Searching depth: " + depth);
+            main.searchDepth(depth);
+
+            if (!main.isStopped()) {
+                if (verbose) {
+                    System.out.println("Completed depth " + depth + " search, score " + main.getScore() + ", pv "
+                            + main.getPrincipalVariation());
+                }
+                if (infoListener != null) {
+                    infoListener.accept(new SearchInfo(depth, main.getSelectiveDepth(), main.getScore(), countNodes(),
+                            System.currentTimeMillis() - startTime, transpositionTable.hashfull(),
+                            main.getPrincipalVariationMoves()));
+                }
+                depth++;
+                //stop once the time manager thinks another depth isn't worth starting
+                if (timeManager.depthFinished(main.getBestMove())) {
+                    main.stop();
+                }
+            }
+        }
+        if (verbose && depth <= maxDepth && timeManager.getHardLimit() == Long.MAX_VALUE) {
+            System.out.println("Stopped at depth: " + (depth - 1));
+        } else if (verbose && depth <= maxDepth) {
+            System.out.println("Time up! Reached depth: " + (depth - 1) + " in " + timeManager.elapsed() + " ms (soft "
+                    + timeManager.getSoftLimit() + " ms, hard " + timeManager.getHardLimit() + " ms)");
+        }
+
+        for (int i = 1; i < searches.length; i++) {
+            searches[i].stop();
+        }
+        for (Future<?> helper : helperResults) {
+            try {
+                helper.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Helper search failed", e.getCause());
+            }
+        }
+        pondering = false;
+        long millis = System.currentTimeMillis() - startTime;
+        collectStats(millis);
+        //with no finished depth any legal move beats none, Move.NONE only means there are no legal moves
+        int bestMove = main.getBestMove();
+        if (bestMove == Move.NONE) {
+            int[] moves = MoveGenerator.generateLegalMoves(root);
+            bestMove = moves.length > 0 ? moves[0] : Move.NONE;
+        }
+        return new SearchResult(bestMove, main.getPonderMove(), main.getScore(), main.getCompletedDepth(),
+                nodes, millis, main.getPrincipalVariationMoves());
+    }
+
+    //a move time beats the clock, with neither the search only stops at its depth or node limit or when told to
+    private void startTimeManager(SearchLimits limits) {
+        if (limits.isPonder() || limits.isInfinite()) {
+            timeManager.startInfinite();
+        } else if (limits.getMoveTime() > 0) {
+            timeManager.startFixed(limits.getMoveTime());
+        } else if (limits.getTimeLeft(searchSide) > 0) {
+            timeManager.startClock(limits.getTimeLeft(searchSide), limits.getIncrement(searchSide),
+                    limits.getMovesToGo());
+        } else {
+            timeManager.startInfinite();
+        }
+    }
+
+    //the expected reply was played, the ponder search carries on under these limits, does nothing if not pondering
+    public void ponderHit(SearchLimits limits) {
+        if (!pondering) {
+            return;
+        }
+        pondering = false;
+        if (limits.getMoveTime() > 0) {
+            timeManager.ponderHit(limits.getMoveTime());
+        } else if (limits.getTimeLeft(searchSide) > 0) {
+            timeManager.ponderHit(limits.getTimeLeft(searchSide), limits.getIncrement(searchSide),
+                    limits.getMovesToGo());
+        }
+    }
+
+    //stops the running search from any thread, it returns the best move of the last finished depth, like running out of
+    //time the search still finishes depth one first so there is always a searched move
+    public void stop() {
+        pondering = false;
+        timeManager.stop();
+    }
+
+    //ends the helper threads and lets go of the searches, the engine can't search after this
+    public void shutdown() {
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+            helperPool = null;
+        }
+        searches = new Search[0];
+        helperResults = new Future<?>[0];
+    }
+
+    public boolean isPondering() {
+        return pondering;
+    }
+
+    //nodes of every thread so far, the helpers are still running so their counts are only close
+    private long countNodes() {
+        long total = 0;
+        for (Search search : searches) {
+            total += search.getNodes();
+        }
+        return total;
+    }
+
+    //adds up the stats of every search thread
+    private void collectStats(long millis) {
+        nodes = 0;
+        leaves = 0;
+        long probes = 0;
+        long hits = 0;
+        long cutoffs = 0;
+        long firstMoveCutoffs = 0;
+        long pawnProbes = 0;
+        long pawnHits = 0;
+        for (Search search : searches) {
+            nodes += search.getNodes();
+            leaves += search.getLeaves();
+            probes += search.getTableProbes();
+            hits += search.getTableHits();
+            cutoffs += search.getCutoffs();
+            firstMoveCutoffs += search.getFirstMoveCutoffs();
+            pawnProbes += search.getPawnTableProbes();
+            pawnHits += search.getPawnTableHits();
+        }
+        hashHitRate = probes == 0 ? 0 : 100.0 * hits / probes;
+        firstMoveCutoffRate = cutoffs == 0 ? 0 : 100.0 * firstMoveCutoffs / cutoffs;
+        pawnHashHitRate = pawnProbes == 0 ? 0 : 100.0 * pawnHits / pawnProbes;
+        if (verbose) {
+            System.out.printf("Hash hit rate: %.1f%% (%d of %d probes)%n", hashHitRate, hits, probes);
+            System.out.printf("First move cutoffs: %.1f%% of %d%n", firstMoveCutoffRate, cutoffs);
+            System.out.printf("Pawn hash hit rate: %.1f%% (%d of %d probes)%n", pawnHashHitRate, pawnHits, pawnProbes);
+            System.out.printf("Threads: %d, nodes: %d, nps: %d%n", searches.length, nodes,
+                    nodes * 1000 / Math.max(1, millis));
+        }
+    }
+
+    //positions visited by the last search
+    public long getNodes() { return nodes; }
+    public long getLeaves() { return leaves; }
+    //percent of transposition table probes in the last search that found an entry
+    public double getHashHitRate() { return hashHitRate; }
+    //percent of beta cutoffs in the last search that came from the first move tried
+    public double getFirstMoveCutoffRate() { return firstMoveCutoffRate; }
+    //percent of pawn structure lookups in the last search that were already in the pawn hash table
+    public double getPawnHashHitRate() { return pawnHashHitRate; }
+}
@@ -5,6 +5,7 @@
  * ICS4U, Mr. Mckenzie
  * 
  * Sidewindow to show the depth and computer moves in player vs computer as well as both user moves in player vs player.
+ * Against the computer it also shows what the search is thinking, updated after every depth while it runs.
  * 
  */
 
@@ -15,21 +16,29 @@ import java.awt.*;
 public class GameWindow extends JFrame {
     private JLabel TimeLabel;
     private JTextArea gameLog;
+    private JTextArea searchInfo;//computer games only
     private Timer whiteTimer;
     private Timer blackTimer;
     private int whiteTimeLeft;
     private int blackTimeLeft;
+    private int increment;//seconds added to a players clock after each of their moves
     private ChessBoard chessBoard;
     private boolean isComputerThinking = false;
     private IntroScreen introScreen;
 
     public GameWindow(String title, ChessBoard board, int timeLimit, IntroScreen introScreen) {
+        this(title, board, timeLimit, 0, introScreen);
+    }
+
+    //timeLimit and increment in seconds
+    public GameWindow(String title, ChessBoard board, int timeLimit, int increment, IntroScreen introScreen) {
 
         super(title);
         this.introScreen = introScreen;
         this.chessBoard = board;
         this.whiteTimeLeft = timeLimit;
         this.blackTimeLeft = timeLimit;
+        this.increment = increment;
         
 
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -56,6 +65,15 @@ public class GameWindow extends JFrame {
         scrollPane.setPreferredSize(new Dimension(200, 400));
         statusPanel.add(scrollPane, BorderLayout.CENTER);
 
+        //search progress
+        if (board instanceof ChessBoardComputer) {
+            searchInfo = new JTextArea(6, 0);
+            searchInfo.setEditable(false);
+            searchInfo.setLineWrap(true);
+            searchInfo.setWrapStyleWord(true);
+            statusPanel.add(searchInfo, BorderLayout.SOUTH);
+        }
+
         //add panels to frame
         add(mainPanel, BorderLayout.CENTER);
         add(statusPanel, BorderLayout.EAST);
@@ -71,16 +89,14 @@ public class GameWindow extends JFrame {
         //move logging
         board.addPropertyChangeListener("moveMade", evt -> {
             String move = (String) evt.getNewValue();
-            if (board instanceof ChessBoardComputer) {
+            //the computers moves come while it is thinking, the players are logged like in player vs player
+            if (board instanceof ChessBoardComputer && isComputerThinking) {
                 ChessBoardComputer computerBoard = (ChessBoardComputer) board;
-                System.out.println(computerBoard.count);
                 int depth = computerBoard.getLastSearchDepth();
                 logMove(move + " (Depth: " + depth + ")");
                 
                 //computer thinking
-                if (isComputerThinking) {
-                    isComputerThinking = false;
-                }
+                isComputerThinking = false;
             } else {
                 logMove(move);
             }
@@ -93,6 +109,7 @@ public class GameWindow extends JFrame {
             computerBoard.addPropertyChangeListener("computerThinking", evt -> {
                 isComputerThinking = (Boolean) evt.getNewValue();
             });
+            computerBoard.addPropertyChangeListener("searchInfo", evt -> showSearchInfo((SearchInfo) evt.getNewValue()));
         }
     }
 
@@ -133,6 +150,10 @@ public class GameWindow extends JFrame {
     private void resetToIntroScreen() {
         whiteTimer.stop();
         blackTimer.stop();
+        //stop the computers search for good so searches from old games never pile up
+        if (chessBoard instanceof ChessBoardComputer) {
+            ((ChessBoardComputer) chessBoard).shutdown();
+        }
         this.dispose();
         introScreen.setVisible(true);
     }
@@ -142,15 +163,18 @@ public class GameWindow extends JFrame {
         resetToIntroScreen();
     }
 
-    //used to switch turns and timers
+    //used to switch turns and timers, the player who just moved gets the increment
     private void switchTimers() {
         if (whiteTimer.isRunning()) {
             whiteTimer.stop();
+            whiteTimeLeft += increment;
             blackTimer.start();
         } else {
             blackTimer.stop();
+            blackTimeLeft += increment;
             whiteTimer.start();
         }
+        updateTimeLabel();
     }
 
 
@@ -163,11 +187,34 @@ public class GameWindow extends JFrame {
         whiteTimer.start();
     }
 
+    //time left on a players clock, read by the computer before it starts thinking
+    public long getTimeLeftMillis(boolean isWhite) {
+        return (isWhite ? whiteTimeLeft : blackTimeLeft) * 1000L;
+    }
+
+    public long getIncrementMillis() {
+        return increment * 1000L;
+    }
+
     //formats to mins:secs
     private String formatTime(int seconds) {
         return String.format("%d:%02d", seconds / 60, seconds % 60);
     }
 
+    //depth, score from the computers side, speed, how full the hash table is, how often it guessed the players reply
+    //and the line it expects
+    private void showSearchInfo(SearchInfo info) {
+        String score = String.format("%+.2f", info.getScore() / 100.0);
+        if (info.isMateScore()) {
+            //getMateIn is negative when the computer is the one getting mated
+            score = info.getMateIn() > 0 ? "Mate in " + info.getMateIn() : "Mated in " + -info.getMateIn();
+        }
+        double ponderHitRate = ((ChessBoardComputer) chessBoard).getPonderHitRate();
+        searchInfo.setText(String.format("Depth: %d/%d   Score: %s%nNodes: %,d%nSpeed: %,d nps%nHash: %.1f%%   Ponder hits: %.0f%%%n%s",
+                info.getDepth(), info.getSelectiveDepth(), score, info.getNodes(), info.getNodesPerSecond(),
+                info.getHashfull() / 10.0, ponderHitRate, info.getPrincipalVariation()));
+    }
+
     //logs move to window
     private void logMove(String move) {
         gameLog.append(move + "\n");
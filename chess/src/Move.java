@@ -0,0 +1,46 @@
+/**
+ * Move.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Moves are packed into a single int so move generation and the search never create objects. Bits 0-5 are the from
+ * square, 6-11 the to square, 12-13 the flag for special moves and 14-16 the promotion piece plus one.
+ *
+ */
+
+public final class Move {
+    //flags for moves that need extra work when made
+    public static final int NORMAL = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int CASTLING = 2;
+    public static final int EN_PASSANT = 3;
+
+    public static final int NONE = 0;//a1 to a1 can never be a real move
+    public static final int MAX_MOVES = 256;//more than any position can have
+
+    private Move() {
+    }
+
+    public static int create(int from, int to, int flags, int promotion) {
+        return from | (to << 6) | (flags << 12) | ((promotion + 1) << 14);
+    }
+
+    public static int create(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int from(int move) { return move & 63; }
+    public static int to(int move) { return (move >>> 6) & 63; }
+    public static int flags(int move) { return (move >>> 12) & 3; }
+    public static int promotion(int move) { return ((move >>> 14) & 7) - 1; }
+
+    //long algebraic notation like e2e4 or e7e8q
+    public static String toString(int move) {
+        String text = Position.squareName(from(move)) + Position.squareName(to(move));
+        if (promotion(move) != Position.NO_PIECE) {
+            text += "pnbrqk".charAt(promotion(move));
+        }
+        return text;
+    }
+}
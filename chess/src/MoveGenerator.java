@@ -0,0 +1,263 @@
+/**
+ * MoveGenerator.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Generates legal moves for the side to move on a Position in one pass. Checkers, pinned pieces and the squares that
+ * stop a check are worked out first so no move has to be played to see if it leaves the king in check. Moves are written
+ * into an int[] the caller owns so generating allocates nothing.
+ *
+ */
+
+import java.util.Arrays;
+
+
+public final class MoveGenerator {
+    private static final int[] PROMOTION_PIECES = {Position.QUEEN, Position.ROOK, Position.BISHOP, Position.KNIGHT};
+
+    private MoveGenerator() {
+    }
+
+    //legal moves in a new array of the right size, for code outside the search
+    public static int[] generateLegalMoves(Position position) {
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = generateLegalMoves(position, moves);
+        return Arrays.copyOf(moves, count);
+    }
+
+    //writes all legal moves for the side to move into the array and returns how many there are
+    public static int generateLegalMoves(Position position, int[] moves) {
+        return generate(position, moves, false);
+    }
+
+    //only captures and promotions, for the quiescence search
+    public static int generateLegalCaptures(Position position, int[] moves) {
+        return generate(position, moves, true);
+    }
+
+    //the legal move between two squares, Move.NONE if there isn't one
+    public static int findMove(Position position, int from, int to, int promotion) {
+        for (int move : generateLegalMoves(position)) {
+            if (Move.from(move) == from && Move.to(move) == to && Move.promotion(move) == promotion) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    //the legal move written in long algebraic notation like e2e4 or e7e8q, Move.NONE if it isn't legal
+    public static int parseMove(Position position, String text) {
+        if (text.length() < 4 || text.length() > 5) {
+            return Move.NONE;
+        }
+        int from = parseSquare(text.substring(0, 2));
+        int to = parseSquare(text.substring(2, 4));
+        int promotion = text.length() == 5 ? "pnbrqk".indexOf(Character.toLowerCase(text.charAt(4))) : Position.NO_PIECE;
+        if (from == Position.NO_SQUARE || to == Position.NO_SQUARE || (text.length() == 5 && promotion < 0)) {
+            return Move.NONE;
+        }
+        return findMove(position, from, to, promotion);
+    }
+
+    private static int parseSquare(String name) {
+        int file = name.charAt(0) - 'a';
+        int rank = name.charAt(1) - '1';
+        return file >= 0 && file < 8 && rank >= 0 && rank < 8 ? rank * 8 + file : Position.NO_SQUARE;
+    }
+
+    private static int generate(Position position, int[] moves, boolean capturesOnly) {
+        int count = 0;
+        int us = position.sideToMove();
+        int them = us ^ 1;
+        long own = position.occupancy(us);
+        long occupied = position.allPieces();
+        int king = position.kingSquare(us);
+        long checkers = position.attackersTo(king, them);
+
+        //king moves, the king is taken off the board so it can't step back along a sliders line
+        long enemyOrEmpty = capturesOnly ? position.occupancy(them) : ~own;
+        long kingTargets = Attacks.king(king) & enemyOrEmpty;
+        long withoutKing = occupied ^ (1L << king);
+        while (kingTargets != 0) {
+            int to = Long.numberOfTrailingZeros(kingTargets);
+            kingTargets &= kingTargets - 1;
+            if (position.attackersTo(to, them, withoutKing) == 0) {
+                moves[count++] = Move.create(king, to, Move.NORMAL);
+            }
+        }
+
+        //in double check only the king can move
+        if (Long.bitCount(checkers) > 1) return count;
+
+        //other pieces have to capture the checker or block it
+        long checkMask = -1L;
+        if (checkers != 0) {
+            checkMask = checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+        }
+        long pinned = pinnedPieces(position, us, king, occupied);
+        long targets = enemyOrEmpty & checkMask;
+
+        count = generatePawnMoves(position, moves, count, us, king, occupied, checkMask, pinned, capturesOnly);
+
+        //a pinned knight can never move
+        long knights = position.pieces(us, Position.KNIGHT) & ~pinned;
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            count = addMoves(moves, count, from, Attacks.knight(from) & targets);
+            knights &= knights - 1;
+        }
+
+        //pinned sliders can still move along the pin line
+        long bishops = position.pieces(us, Position.BISHOP) | position.pieces(us, Position.QUEEN);
+        while (bishops != 0) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            long pieceTargets = Attacks.bishop(from, occupied) & targets;
+            if ((pinned & (1L << from)) != 0) {
+                pieceTargets &= Attacks.line(king, from);
+            }
+            count = addMoves(moves, count, from, pieceTargets);
+            bishops &= bishops - 1;
+        }
+
+        long rooks = position.pieces(us, Position.ROOK) | position.pieces(us, Position.QUEEN);
+        while (rooks != 0) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            long pieceTargets = Attacks.rook(from, occupied) & targets;
+            if ((pinned & (1L << from)) != 0) {
+                pieceTargets &= Attacks.line(king, from);
+            }
+            count = addMoves(moves, count, from, pieceTargets);
+            rooks &= rooks - 1;
+        }
+
+        if (checkers == 0 && !capturesOnly) {
+            count = generateCastlingMoves(position, moves, count, us, occupied);
+        }
+        return count;
+    }
+
+    //own pieces that are the only thing between the king and an enemy slider
+    private static long pinnedPieces(Position position, int us, int king, long occupied) {
+        int them = us ^ 1;
+        long snipers = (Attacks.rook(king, 0L) & (position.pieces(them, Position.ROOK) | position.pieces(them, Position.QUEEN)))
+                     | (Attacks.bishop(king, 0L) & (position.pieces(them, Position.BISHOP) | position.pieces(them, Position.QUEEN)));
+        long pinned = 0L;
+        while (snipers != 0) {
+            long blockers = Attacks.between(king, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & position.occupancy(us);
+            }
+            snipers &= snipers - 1;
+        }
+        return pinned;
+    }
+
+    private static int generatePawnMoves(Position position, int[] moves, int count, int us, int king, long occupied,
+            long checkMask, long pinned, boolean capturesOnly) {
+        long pawns = position.pieces(us, Position.PAWN);
+        long enemy = position.occupancy(us ^ 1);
+        int forward = us == Position.WHITE ? 8 : -8;
+        long promotionRank = us == Position.WHITE ? Position.RANK_8 : Position.RANK_1;
+        long doublePushRank = us == Position.WHITE ? 0xFF000000L : 0xFF00000000L;//rank 4 or rank 5
+        int enPassant = position.enPassantSquare();
+
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = checkMask;
+            if ((pinned & (1L << from)) != 0) {
+                allowed &= Attacks.line(king, from);
+            }
+
+            //pushes, only promotions when generating captures
+            int to = from + forward;
+            if ((occupied & (1L << to)) == 0) {
+                if ((allowed & (1L << to)) != 0 && (!capturesOnly || (promotionRank & (1L << to)) != 0)) {
+                    count = addPawnMove(moves, count, from, to, promotionRank);
+                }
+                int doubleTo = to + forward;
+                if (!capturesOnly && doubleTo >= 0 && doubleTo < 64 && (doublePushRank & allowed & (1L << doubleTo)) != 0
+                        && (occupied & (1L << doubleTo)) == 0) {
+                    moves[count++] = Move.create(from, doubleTo, Move.DOUBLE_PAWN_PUSH);
+                }
+            }
+
+            //captures
+            long attacks = Attacks.pawn(us, from);
+            long captures = attacks & enemy & allowed;
+            while (captures != 0) {
+                count = addPawnMove(moves, count, from, Long.numberOfTrailingZeros(captures), promotionRank);
+                captures &= captures - 1;
+            }
+
+            //en pasant
+            if (enPassant != Position.NO_SQUARE && (attacks & (1L << enPassant)) != 0
+                    && isLegalEnPassant(position, us, king, from, enPassant, occupied)) {
+                moves[count++] = Move.create(from, enPassant, Move.EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    //en pasant takes two pawns off one rank so it is checked by looking at the king with both pawns moved
+    private static boolean isLegalEnPassant(Position position, int us, int king, int from, int to, long occupied) {
+        int them = us ^ 1;
+        int capturedSquare = us == Position.WHITE ? to - 8 : to + 8;
+        long after = (occupied ^ (1L << from) ^ (1L << capturedSquare)) | (1L << to);
+        long attackers = (Attacks.pawn(us, king) & position.pieces(them, Position.PAWN) & ~(1L << capturedSquare))
+                       | (Attacks.knight(king) & position.pieces(them, Position.KNIGHT))
+                       | (Attacks.bishop(king, after) & (position.pieces(them, Position.BISHOP) | position.pieces(them, Position.QUEEN)))
+                       | (Attacks.rook(king, after) & (position.pieces(them, Position.ROOK) | position.pieces(them, Position.QUEEN)));
+        return attackers == 0;
+    }
+
+    //adds all four promotions when the pawn reaches the last rank
+    private static int addPawnMove(int[] moves, int count, int from, int to, long promotionRank) {
+        if ((promotionRank & (1L << to)) != 0) {
+            for (int piece : PROMOTION_PIECES) {
+                moves[count++] = Move.create(from, to, Move.NORMAL, piece);
+            }
+        } else {
+            moves[count++] = Move.create(from, to, Move.NORMAL);
+        }
+        return count;
+    }
+
+    //king can't castle through or into check, only called when not in check
+    private static int generateCastlingMoves(Position position, int[] moves, int count, int us, long occupied) {
+        int rights = position.castlingRights();
+        int them = us ^ 1;
+        int kingSide = us == Position.WHITE ? Position.WHITE_KINGSIDE : Position.BLACK_KINGSIDE;
+        int queenSide = us == Position.WHITE ? Position.WHITE_QUEENSIDE : Position.BLACK_QUEENSIDE;
+        if ((rights & (kingSide | queenSide)) == 0) return count;
+
+        int king = us == Position.WHITE ? 4 : 60;
+        if (position.pieceAt(king) != Position.pieceCode(us, Position.KING)) return count;
+
+        if ((rights & kingSide) != 0
+                && position.pieceAt(king + 3) == Position.pieceCode(us, Position.ROOK)
+                && (occupied & ((1L << (king + 1)) | (1L << (king + 2)))) == 0
+                && !position.isSquareAttacked(king + 1, them)
+                && !position.isSquareAttacked(king + 2, them)) {
+            moves[count++] = Move.create(king, king + 2, Move.CASTLING);
+        }
+        if ((rights & queenSide) != 0
+                && position.pieceAt(king - 4) == Position.pieceCode(us, Position.ROOK)
+                && (occupied & ((1L << (king - 1)) | (1L << (king - 2)) | (1L << (king - 3)))) == 0
+                && !position.isSquareAttacked(king - 1, them)
+                && !position.isSquareAttacked(king - 2, them)) {
+            moves[count++] = Move.create(king, king - 2, Move.CASTLING);
+        }
+        return count;
+    }
+
+    //adds a move to every square in the target bitboard
+    private static int addMoves(int[] moves, int count, int from, long targets) {
+        while (targets != 0) {
+            moves[count++] = Move.create(from, Long.numberOfTrailingZeros(targets), Move.NORMAL);
+            targets &= targets - 1;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * MoveOrderer.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Scores moves so alpha beta looks at the best ones first. The hash move goes first, then captures by most valuable
+ * victim least valuable attacker, then the killer moves for the ply and then quiet moves by their history score.
+ * Also counts how often a cutoff comes from the first move so the ordering can be measured.
+ *
+ */
+
+public class MoveOrderer {
+    //score bands so each kind of move always sorts above the next one
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int KILLER_SCORE = 1 << 27;
+    private static final int HISTORY_LIMIT = 1 << 26;//history stays below the killers
+
+    private static final int[] VICTIM_VALUES = {1, 3, 3, 5, 9, 0};//pawn, knight, bishop, rook, queen, king
+
+    private final int[][] scores;
+    private final int[][] killers;//two quiet moves per ply that caused a cutoff
+    private final int[][][] history = new int[2][64][64];//color, from square, to square
+
+    //stats for the first move cutoff rate
+    private long cutoffs;
+    private long firstMoveCutoffs;
+
+    public MoveOrderer(int maxPly) {
+        scores = new int[maxPly][Move.MAX_MOVES];
+        killers = new int[maxPly][2];
+    }
+
+    //called at the start of each search, killers are cleared and history is halved so old results count less
+    public void newSearch() {
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = Move.NONE;
+            plyKillers[1] = Move.NONE;
+        }
+        ageHistory();
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+    }
+
+    //gives each move in the list a score for pickMove
+    public void scoreMoves(Position position, int[] moves, int count, int hashMove, int ply) {
+        int[] plyScores = scores[ply];
+        int us = position.sideToMove();
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (move == hashMove) {
+                plyScores[i] = HASH_MOVE_SCORE;
+            } else if (isCapture(position, move) || Move.promotion(move) != Position.NO_PIECE) {
+                plyScores[i] = CAPTURE_SCORE + mvvLva(position, move);
+            } else if (move == killers[ply][0]) {
+                plyScores[i] = KILLER_SCORE + 1;
+            } else if (move == killers[ply][1]) {
+                plyScores[i] = KILLER_SCORE;
+            } else {
+                plyScores[i] = history[us][Move.from(move)][Move.to(move)];
+            }
+        }
+    }
+
+    //swaps the best scored move left in the list into place and returns it, only sorts as far as the search gets
+    public int pickMove(int[] moves, int count, int index, int ply) {
+        int[] plyScores = scores[ply];
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (plyScores[i] > plyScores[best]) {
+                best = i;
+            }
+        }
+        int move = moves[best];
+        moves[best] = moves[index];
+        moves[index] = move;
+        int score = plyScores[best];
+        plyScores[best] = plyScores[index];
+        plyScores[index] = score;
+        return move;
+    }
+
+    //remembers a move that caused a beta cutoff, quiet moves become killers and gain history
+    public void recordCutoff(Position position, int move, int moveIndex, int ply, int depth) {
+        cutoffs++;
+        if (moveIndex == 0) {
+            firstMoveCutoffs++;
+        }
+        if (isCapture(position, move) || Move.promotion(move) != Position.NO_PIECE) {
+            return;
+        }
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] fromHistory = history[position.sideToMove()][Move.from(move)];
+        fromHistory[Move.to(move)] += depth * depth;
+        if (fromHistory[Move.to(move)] >= HISTORY_LIMIT) {
+            ageHistory();
+        }
+    }
+
+    private void ageHistory() {
+        for (int color = 0; color < 2; color++) {
+            for (int from = 0; from < 64; from++) {
+                for (int to = 0; to < 64; to++) {
+                    history[color][from][to] /= 2;
+                }
+            }
+        }
+    }
+
+    //most valuable victim first, then least valuable attacker
+    private static int mvvLva(Position position, int move) {
+        int victim = Move.flags(move) == Move.EN_PASSANT ? Position.PAWN : pieceType(position.pieceAt(Move.to(move)));
+        int attacker = Position.typeOf(position.pieceAt(Move.from(move)));
+        int score = victim == Position.NO_PIECE ? 0 : VICTIM_VALUES[victim] * 16;
+        if (Move.promotion(move) != Position.NO_PIECE) {
+            score += VICTIM_VALUES[Move.promotion(move)] * 16;
+        }
+        return score + 8 - attacker;
+    }
+
+    private static int pieceType(int piece) {
+        return piece == Position.NO_PIECE ? Position.NO_PIECE : Position.typeOf(piece);
+    }
+
+    static boolean isCapture(Position position, int move) {
+        return position.pieceAt(Move.to(move)) != Position.NO_PIECE || Move.flags(move) == Move.EN_PASSANT;
+    }
+
+    //percent of beta cutoffs that came from the first move searched
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : 100.0 * firstMoveCutoffs / cutoffs;
+    }
+
+    public long getCutoffs() { return cutoffs; }
+    public long getFirstMoveCutoffs() { return firstMoveCutoffs; }
+}
@@ -0,0 +1,60 @@
+/**
+ * PawnHashTable.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Remembers pawn structure scores by the pawn only zobrist key. Pawns move much less often than other pieces so nearly
+ * every leaf finds its pawns already scored. Each search thread has its own table so no locking is needed.
+ *
+ */
+
+public class PawnHashTable {
+    private static final int DEFAULT_ENTRIES = 1 << 16;//about 1 MB per search thread
+
+    private final long[] keys;
+    private final long[] scores;
+    private final boolean[] used;
+    private final int mask;
+
+    //stats for the hit rate
+    private long probes;
+    private long hits;
+
+    public PawnHashTable() {
+        this(DEFAULT_ENTRIES);
+    }
+
+    //entries is rounded down to a power of two
+    public PawnHashTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries));
+        keys = new long[size];
+        scores = new long[size];
+        used = new boolean[size];
+        mask = size - 1;
+    }
+
+    //pawn structure score for the position, worked out and stored if it isn't in the table
+    public long probe(Position position) {
+        probes++;
+        long key = position.pawnKey();
+        int index = (int) key & mask;
+        if (used[index] && keys[index] == key) {
+            hits++;
+            return scores[index];
+        }
+        long score = PawnStructure.evaluate(position);
+        keys[index] = key;
+        scores[index] = score;
+        used[index] = true;
+        return score;
+    }
+
+    public long getProbes() { return probes; }
+    public long getHits() { return hits; }
+
+    public void resetStats() {
+        probes = 0;
+        hits = 0;
+    }
+}
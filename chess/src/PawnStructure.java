@@ -0,0 +1,97 @@
+/**
+ * PawnStructure.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Scores the pawns: penalties for doubled, isolated and backward pawns and a bonus for passed pawns that grows as they
+ * advance. Only depends on where the pawns are so the result is cached in the pawn hash table. Scores are from whites
+ * side with the middlegame score in the top 32 bits and the endgame score in the bottom 32 bits of a long.
+ *
+ */
+
+public final class PawnStructure {
+    private static final long FILE_A = 0x0101010101010101L;
+
+    private static final int DOUBLED_MIDGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    private static final int BACKWARD_MIDGAME = -8;
+    private static final int BACKWARD_ENDGAME = -10;
+    private static final int[] PASSED_MIDGAME = {0, 5, 10, 15, 25, 40, 60, 0};//by rank from the pawns side
+    private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 55, 85, 120, 0};
+
+    private static final long[] ADJACENT_FILES = new long[8];
+    private static final long[][] PASSED_MASKS = new long[2][64];//squares in front on the same and next files
+    private static final long[][] SUPPORT_MASKS = new long[2][64];//squares beside and behind on the next files
+    static {
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILE_A << (file - 1) : 0) | (file < 7 ? FILE_A << (file + 1) : 0);
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            int file = sq & 7;
+            int rank = sq >> 3;
+            long files = ADJACENT_FILES[file] | (FILE_A << file);
+            long above = rank < 7 ? -1L << ((rank + 1) * 8) : 0;
+            long below = rank > 0 ? -1L >>> ((8 - rank) * 8) : 0;
+            PASSED_MASKS[Position.WHITE][sq] = files & above;
+            PASSED_MASKS[Position.BLACK][sq] = files & below;
+            SUPPORT_MASKS[Position.WHITE][sq] = ADJACENT_FILES[file] & ~above;
+            SUPPORT_MASKS[Position.BLACK][sq] = ADJACENT_FILES[file] & ~below;
+        }
+    }
+
+    private PawnStructure() {
+    }
+
+    public static long evaluate(Position position) {
+        int middlegame = 0;
+        int endgame = 0;
+        for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+            int sign = color == Position.WHITE ? 1 : -1;
+            long own = position.pieces(color, Position.PAWN);
+            long enemy = position.pieces(color ^ 1, Position.PAWN);
+            long enemyAttacks = Attacks.pawnAttacks(color ^ 1, enemy);
+
+            for (int file = 0; file < 8; file++) {
+                int onFile = Long.bitCount(own & (FILE_A << file));
+                if (onFile > 1) {
+                    middlegame += sign * DOUBLED_MIDGAME * (onFile - 1);
+                    endgame += sign * DOUBLED_ENDGAME * (onFile - 1);
+                }
+            }
+
+            long pawns = own;
+            while (pawns != 0) {
+                int sq = Long.numberOfTrailingZeros(pawns);
+                pawns &= pawns - 1;
+                int relativeRank = color == Position.WHITE ? sq >> 3 : 7 - (sq >> 3);
+
+                if ((PASSED_MASKS[color][sq] & enemy) == 0) {
+                    middlegame += sign * PASSED_MIDGAME[relativeRank];
+                    endgame += sign * PASSED_ENDGAME[relativeRank];
+                }
+                if ((ADJACENT_FILES[sq & 7] & own) == 0) {
+                    middlegame += sign * ISOLATED_MIDGAME;
+                    endgame += sign * ISOLATED_ENDGAME;
+                } else if ((SUPPORT_MASKS[color][sq] & own) == 0) {
+                    //no pawn beside or behind can protect it and it can't step up safely
+                    int stop = color == Position.WHITE ? sq + 8 : sq - 8;
+                    if ((enemyAttacks & (1L << stop)) != 0) {
+                        middlegame += sign * BACKWARD_MIDGAME;
+                        endgame += sign * BACKWARD_ENDGAME;
+                    }
+                }
+            }
+        }
+        return pack(middlegame, endgame);
+    }
+
+    public static long pack(int middlegame, int endgame) {
+        return ((long) middlegame << 32) | (endgame & 0xFFFFFFFFL);
+    }
+
+    public static int middlegame(long score) { return (int) (score >> 32); }
+    public static int endgame(long score) { return (int) score; }
+}
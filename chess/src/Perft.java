@@ -0,0 +1,179 @@
+/**
+ * Perft.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Counts the leaf nodes of the move tree to a depth so the move generator can be checked against known numbers. The
+ * top of the tree is split into tasks on a fork join pool, the last ply is counted straight from the move list instead
+ * of playing each move, and an optional hash table remembers the counts of positions reached by different move orders.
+ * Prints the count under each root move (divide) so a wrong total can be tracked down to a move.
+ * Run with java Perft [depth] [fen] [threads] [hash megabytes]
+ *
+ */
+
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+public class Perft {
+    private static final int DEFAULT_DEPTH = 6;
+    private static final int SPLIT_DEPTH = 4;//smaller subtrees are counted on one thread
+    private static final int ENTRY_BYTES = 16;
+
+    private final ForkJoinPool pool;
+
+    //hash of counts, the key is stored xored with the data like in the transposition table so threads don't need locks
+    private final long[] hashKeys;
+    private final long[] hashData;
+    private final int hashMask;
+
+    public Perft(int threads, int hashMegabytes) {
+        pool = new ForkJoinPool(threads);
+        if (hashMegabytes > 0) {
+            int entries = Integer.highestOneBit((int) Math.min((long) hashMegabytes * 1024 * 1024 / ENTRY_BYTES, 1 << 28));
+            hashKeys = new long[entries];
+            hashData = new long[entries];
+            hashMask = entries - 1;
+        } else {
+            hashKeys = null;
+            hashData = null;
+            hashMask = 0;
+        }
+    }
+
+    //total leaf nodes at the depth
+    public long count(Position position, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        return pool.invoke(new PerftTask(new Position(position), depth));
+    }
+
+    //counts each root move in parallel, prints them in move order and returns the total
+    public long divide(Position position, int depth, PrintStream out) {
+        int[] moves = MoveGenerator.generateLegalMoves(position);
+        PerftTask[] tasks = new PerftTask[moves.length];
+        for (int i = 0; i < moves.length; i++) {
+            Position child = new Position(position);
+            child.makeMove(moves[i]);
+            tasks[i] = new PerftTask(child, depth - 1);
+            pool.execute(tasks[i]);
+        }
+        long total = 0;
+        for (int i = 0; i < moves.length; i++) {
+            long nodes = tasks[i].join();
+            out.println(Move.toString(moves[i]) + ": " + nodes);
+            total += nodes;
+        }
+        return total;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private long probe(long key, int depth) {
+        int index = (int) key & hashMask;
+        long data = hashData[index];
+        if (data != 0 && (hashKeys[index] ^ data) == key && (data & 0xFF) == depth) {
+            return data >>> 8;
+        }
+        return -1;
+    }
+
+    private void store(long key, int depth, long nodes) {
+        int index = (int) key & hashMask;
+        long data = nodes << 8 | depth;
+        hashKeys[index] = key ^ data;
+        hashData[index] = data;
+    }
+
+    //counts one subtree, big ones are split into a task per move
+    private class PerftTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        private final Position position;
+        private final int depth;
+
+        PerftTask(Position position, int depth) {
+            this.position = position;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth < SPLIT_DEPTH) {
+                return countNodes(depth, new int[Math.max(depth, 1)][Move.MAX_MOVES]);
+            }
+            long key = position.key();
+            if (hashData != null) {
+                long stored = probe(key, depth);
+                if (stored >= 0) {
+                    return stored;
+                }
+            }
+            int[] moves = MoveGenerator.generateLegalMoves(position);
+            PerftTask[] tasks = new PerftTask[moves.length];
+            for (int i = 0; i < moves.length; i++) {
+                Position child = new Position(position);
+                child.makeMove(moves[i]);
+                tasks[i] = new PerftTask(child, depth - 1);
+            }
+            invokeAll(tasks);
+            long nodes = 0;
+            for (PerftTask task : tasks) {
+                nodes += task.join();
+            }
+            if (hashData != null) {
+                store(key, depth, nodes);
+            }
+            return nodes;
+        }
+
+        //plain make and unmake, the last ply is just the number of moves
+        private long countNodes(int depth, int[][] buffers) {
+            if (depth == 0) {
+                return 1;
+            }
+            int[] moves = buffers[depth - 1];
+            int count = MoveGenerator.generateLegalMoves(position, moves);
+            if (depth == 1) {
+                return count;
+            }
+            long key = position.key();
+            if (hashData != null) {
+                long stored = probe(key, depth);
+                if (stored >= 0) {
+                    return stored;
+                }
+            }
+            long nodes = 0;
+            for (int i = 0; i < count; i++) {
+                position.makeMove(moves[i]);
+                nodes += countNodes(depth - 1, buffers);
+                position.unmakeMove(moves[i]);
+            }
+            if (hashData != null) {
+                store(key, depth, nodes);
+            }
+            return nodes;
+        }
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+        String fen = args.length > 1 ? args[1] : Position.START_FEN;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int hashMegabytes = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        Perft perft = new Perft(threads, hashMegabytes);
+        Position position = Position.fromFen(fen);
+        System.out.println("Perft " + depth + " of " + fen + " on " + threads + " threads, hash " + hashMegabytes + " MB");
+        long start = System.nanoTime();
+        long nodes = depth == 0 ? 1 : perft.divide(position, depth, System.out);
+        long millis = Math.max(1, (System.nanoTime() - start) / 1000000);
+        System.out.printf("%nNodes: %d%nTime: %d ms%nNPS: %d%n", nodes, millis, nodes * 1000 / millis);
+        perft.shutdown();
+    }
+}
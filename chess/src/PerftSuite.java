@@ -0,0 +1,133 @@
+/**
+ * PerftSuite.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Runs perft on the standard test positions (start position, Kiwipete and the other well known ones) and a set of
+ * smaller positions aimed at en pasant pins, castling and promotion, and compares against the published node counts.
+ * Position.perft only counts the moves on the last ply without playing them, so up to FULL_DEPTH every count is done a
+ * second time playing every move with makeMove and unmakeMove, last ply included, and checking the zobrist key after
+ * each one against one built from scratch. Also checks the position is the same after each run so unmake is tested
+ * too. Prints the nodes per second for each position and exits with 1 if anything is wrong.
+ * Run with java PerftSuite [max depth]
+ *
+ */
+
+public class PerftSuite {
+    private static final int DEFAULT_MAX_DEPTH = 5;
+    private static final int FULL_DEPTH = 3;//depths also counted without bulk counting, slow so kept shallow
+
+    //name, fen, then node counts from depth 1
+    private static final String[][] POSITIONS = {
+        {"start position", Position.START_FEN,
+            "20", "400", "8902", "197281", "4865609", "119060324"},
+        {"kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "48", "2039", "97862", "4085603", "193690690"},
+        {"position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "14", "191", "2812", "43238", "674624", "11030083", "178633661"},
+        {"position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "6", "264", "9467", "422333", "15833292"},
+        {"position 4 mirrored", "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1",
+            "6", "264", "9467", "422333", "15833292"},
+        {"position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "44", "1486", "62379", "2103487", "89941194"},
+        {"position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "46", "2079", "89890", "3894594", "164075551"},
+        {"en pasant discovered check", "3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1",
+            "18", "92", "1670", "10138", "185429", "1134888"},
+        {"en pasant horizontal pin", "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1",
+            "15", "126", "1928", "13931", "206379", "1440467"},
+        {"short castling gives check", "5k2/8/8/8/8/8/8/4K2R w K - 0 1",
+            "15", "66", "1198", "6399", "120330", "661072"},
+        {"long castling gives check", "3k4/8/8/8/8/8/8/R3K3 w Q - 0 1",
+            "16", "71", "1286", "7418", "141077", "803711"},
+        {"castling rights lost by capture", "r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1",
+            "26", "1141", "27826", "1274206"},
+        {"castling prevented", "r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1",
+            "44", "1494", "50509", "1720476"},
+        {"promote out of check", "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1",
+            "11", "133", "1442", "19174", "266199", "3821001"},
+        {"underpromote to check", "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1",
+            "29", "165", "5160", "31961", "1004658"},
+        {"promote to give check", "4k3/1P6/8/8/8/8/K7/8 w - - 0 1",
+            "9", "40", "472", "2661", "38983", "217342"},
+        {"self stalemate", "K1k5/8/P7/8/8/8/8/8 w - - 0 1",
+            "2", "6", "13", "63", "382", "2217"},
+        {"stalemate and checkmate", "8/k1P5/8/1K6/8/8/8/8 w - - 0 1",
+            "10", "25", "268", "926", "10857", "43261", "567584"},
+    };
+
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MAX_DEPTH;
+        int failures = 0;
+        long totalNodes = 0;
+        long totalNanos = 0;
+
+        for (String[] test : POSITIONS) {
+            Position position = Position.fromFen(test[1]);
+            String fen = position.toFen();
+            long key = position.key();
+            int depths = Math.min(maxDepth, test.length - 2);
+            long nodes = 0;
+            long counted = 0;//leaf nodes over every depth, for the speed
+            long start = System.nanoTime();
+            boolean passed = true;
+            for (int depth = 1; depth <= depths; depth++) {
+                nodes = position.perft(depth);
+                counted += nodes;
+                long expected = Long.parseLong(test[depth + 1]);
+                if (nodes != expected) {
+                    System.out.printf("FAIL %s depth %d: expected %d, got %d%n", test[0], depth, expected, nodes);
+                    passed = false;
+                }
+                if (depth <= FULL_DEPTH) {
+                    long playedStart = System.nanoTime();
+                    long played = playedPerft(position, depth);
+                    start += System.nanoTime() - playedStart;//left out of the speed, it is only a check
+                    if (played != expected) {
+                        System.out.printf("FAIL %s depth %d: expected %d playing every move, got %d%n", test[0], depth,
+                                expected, played);
+                        passed = false;
+                    }
+                }
+                if (!position.toFen().equals(fen) || position.key() != key) {
+                    System.out.printf("FAIL %s depth %d: position changed to %s%n", test[0], depth, position.toFen());
+                    passed = false;
+                }
+            }
+            long nanos = System.nanoTime() - start;
+            totalNodes += counted;
+            totalNanos += nanos;
+            if (!passed) {
+                failures++;
+            }
+            System.out.printf("%-4s %-32s depth %d  nodes %11d  %7d ms  %,12d nps%n", passed ? "ok" : "FAIL", test[0],
+                    depths, nodes, nanos / 1000000, (long) (counted / (nanos / 1e9)));
+        }
+
+        System.out.printf("%d of %d positions passed, %,d nps overall%n", POSITIONS.length - failures, POSITIONS.length,
+                (long) (totalNodes / (totalNanos / 1e9)));
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    //perft that plays the leaf moves too, -1 if a move leaves the key different from one built from scratch
+    private static long playedPerft(Position position, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long nodes = 0;
+        for (int move : MoveGenerator.generateLegalMoves(position)) {
+            position.makeMove(move);
+            long child = position.key() == position.computeKey() ? playedPerft(position, depth - 1) : -1;
+            position.unmakeMove(move);
+            if (child < 0) {
+                return -1;
+            }
+            nodes += child;
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * PieceSquareTables.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Piece values plus a bonus for where each piece stands, one set for the middlegame and one for the endgame, worked out
+ * once for every color, piece and square so the evaluation is just table lookups. Position adds and subtracts these as
+ * pieces move, along with a phase that goes from 24 with all the pieces on down to 0 with only kings and pawns, and the
+ * evaluation blends the two scores by the phase.
+ *
+ */
+
+public final class PieceSquareTables {
+    //used for move ordering, exchanges and pruning margins
+    public static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 20000};//pawn, knight, bishop, rook, queen, king
+
+    public static final int MAX_PHASE = 24;
+    static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};//full set: 8 minors (4 knights, 4 bishops), 4 rooks, 2 queens
+
+    private static final int[] MIDGAME_VALUES = {100, 320, 330, 500, 900, 0};
+    private static final int[] ENDGAME_VALUES = {120, 300, 320, 530, 940, 0};//pawns and rooks matter more with less on the board
+
+    //tables are from whites side with rank 8 first so they read like the board
+    private static final int[] PAWN_MIDGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         10,  10,  20,  30,  30,  20,  10,  10,
+          5,   5,  10,  25,  25,  10,   5,   5,
+          0,   0,   0,  20,  20,   0,   0,   0,
+          5,  -5, -10,   0,   0, -10,  -5,   5,
+          5,  10,  10, -20, -20,  10,  10,   5,
+          0,   0,   0,   0,   0,   0,   0,   0,
+    };
+    private static final int[] PAWN_ENDGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         80,  80,  80,  80,  80,  80,  80,  80,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         30,  30,  30,  30,  30,  30,  30,  30,
+         20,  20,  20,  20,  20,  20,  20,  20,
+         10,  10,  10,  10,  10,  10,  10,  10,
+         10,  10,  10,  10,  10,  10,  10,  10,
+          0,   0,   0,   0,   0,   0,   0,   0,
+    };
+    private static final int[] KNIGHT = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20,   0,   0,   0,   0, -20, -40,
+        -30,   0,  10,  15,  15,  10,   0, -30,
+        -30,   5,  15,  20,  20,  15,   5, -30,
+        -30,   0,  15,  20,  20,  15,   0, -30,
+        -30,   5,  10,  15,  15,  10,   5, -30,
+        -40, -20,   0,   5,   5,   0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50,
+    };
+    private static final int[] BISHOP = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,  10,  10,   5,   0, -10,
+        -10,   5,   5,  10,  10,   5,   5, -10,
+        -10,   0,  10,  10,  10,  10,   0, -10,
+        -10,  10,  10,  10,  10,  10,  10, -10,
+        -10,   5,   0,   0,   0,   0,   5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20,
+    };
+    private static final int[] ROOK_MIDGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+          5,  10,  10,  10,  10,  10,  10,   5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+          0,   0,   0,   5,   5,   0,   0,   0,
+    };
+    private static final int[] ROOK_ENDGAME = {
+          5,   5,   5,   5,   5,   5,   5,   5,
+         10,  15,  15,  15,  15,  15,  15,  10,
+          0,   0,   0,   0,   0,   0,   0,   0,
+          0,   0,   0,   0,   0,   0,   0,   0,
+          0,   0,   0,   0,   0,   0,   0,   0,
+          0,   0,   0,   0,   0,   0,   0,   0,
+          0,   0,   0,   0,   0,   0,   0,   0,
+          0,   0,   0,   0,   0,   0,   0,   0,
+    };
+    private static final int[] QUEEN = {
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,   5,   5,   5,   0, -10,
+         -5,   0,   5,   5,   5,   5,   0,  -5,
+          0,   0,   5,   5,   5,   5,   0,  -5,
+        -10,   5,   5,   5,   5,   5,   0, -10,
+        -10,   0,   5,   0,   0,   0,   0, -10,
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+    };
+    //king hides behind its pawns while there are pieces to attack it
+    private static final int[] KING_MIDGAME = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+         20,  20,   0,   0,   0,   0,  20,  20,
+         20,  30,  10,   0,   0,  10,  30,  20,
+    };
+    //and comes to the middle once they are gone
+    private static final int[] KING_ENDGAME = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10,   0,   0, -10, -20, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -30,   0,   0,   0,   0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+
+    private static final int[][] MIDGAME_TABLES = {PAWN_MIDGAME, KNIGHT, BISHOP, ROOK_MIDGAME, QUEEN, KING_MIDGAME};
+    private static final int[][] ENDGAME_TABLES = {PAWN_ENDGAME, KNIGHT, BISHOP, ROOK_ENDGAME, QUEEN, KING_ENDGAME};
+
+    //material and position bonus by color, piece and square
+    static final int[][][] MIDGAME = new int[2][6][64];
+    static final int[][][] ENDGAME = new int[2][6][64];
+    static {
+        for (int type = Position.PAWN; type <= Position.KING; type++) {
+            for (int sq = 0; sq < 64; sq++) {
+                //the tables start at a8 so white flips the rank, black reads its own side the same way
+                MIDGAME[Position.WHITE][type][sq] = MIDGAME_VALUES[type] + MIDGAME_TABLES[type][sq ^ 56];
+                MIDGAME[Position.BLACK][type][sq] = MIDGAME_VALUES[type] + MIDGAME_TABLES[type][sq];
+                ENDGAME[Position.WHITE][type][sq] = ENDGAME_VALUES[type] + ENDGAME_TABLES[type][sq ^ 56];
+                ENDGAME[Position.BLACK][type][sq] = ENDGAME_VALUES[type] + ENDGAME_TABLES[type][sq];
+            }
+        }
+    }
+
+    private PieceSquareTables() {
+    }
+}
@@ -0,0 +1,581 @@
+/**
+ * Position.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Headless bitboard version of the board used by the search. Keeps one 64 bit long per piece type and color plus occupancy,
+ * with make and unmake for every move including castling, en pasant and promotion. ChessBoard only uses it to draw the
+ * String[][] view. Squares go from a1 = 0 to h8 = 63. A zobrist key for the transposition table is updated with every change.
+ *
+ */
+
+import java.util.Arrays;
+
+
+public class Position {
+    //colors
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    //piece types
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+    public static final int NO_PIECE = -1;
+    public static final int NO_SQUARE = -1;
+
+    //castling rights as bits
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    //bitboard masks for the back ranks
+    static final long RANK_1 = 0xFFL;
+    static final long RANK_8 = RANK_1 << 56;
+
+    private static final String FEN_PIECES = "pnbrqk";
+    private static final int INITIAL_UNDO_SIZE = 512;//plenty for a game plus the deepest search
+
+    //castling rights left after a move touches a square, clears rights when king or rook moves or rook is captured
+    private static final int[] CASTLING_MASK = new int[64];
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            CASTLING_MASK[sq] = 15;
+        }
+        CASTLING_MASK[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[7] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[56] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[63] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+    }
+
+    private final long[][] pieces = new long[2][6];//one bitboard per color and piece type
+    private final long[] occupancy = new long[2];
+    private long allPieces;
+    private final int[] board = new int[64];//piece on each square (color * 6 + type) for fast lookup
+    private int sideToMove = WHITE;
+    private int castlingRights;
+    private int enPassantSquare = NO_SQUARE;
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+    private long key;//zobrist hash of the position
+    private long pawnKey;//zobrist hash of just the pawns, for the pawn hash table
+    //material and piece square bonus per color for each stage of the game and the phase, kept up to date by every move
+    private final int[] middlegameScore = new int[2];
+    private final int[] endgameScore = new int[2];
+    private int phase;
+
+    //undo stack made once and reused, each move stores what can't be worked out from the move itself
+    private int[] undoCaptured = new int[INITIAL_UNDO_SIZE];
+    private int[] undoCastling = new int[INITIAL_UNDO_SIZE];
+    private int[] undoEnPassant = new int[INITIAL_UNDO_SIZE];
+    private int[] undoHalfmove = new int[INITIAL_UNDO_SIZE];
+    private long[] undoKey = new long[INITIAL_UNDO_SIZE];
+    private int ply;//number of moves on the undo stack
+    private final int[] scratchMoves = new int[Move.MAX_MOVES];//for checkmate and stalemate tests
+
+    public Position() {
+        clear();
+    }
+
+    //copy another position so the search can change it without touching the original
+    public Position(Position other) {
+        for (int color = 0; color < 2; color++) {
+            System.arraycopy(other.pieces[color], 0, pieces[color], 0, 6);
+        }
+        System.arraycopy(other.occupancy, 0, occupancy, 0, 2);
+        System.arraycopy(other.board, 0, board, 0, 64);
+        allPieces = other.allPieces;
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        key = other.key;
+        pawnKey = other.pawnKey;
+        System.arraycopy(other.middlegameScore, 0, middlegameScore, 0, 2);
+        System.arraycopy(other.endgameScore, 0, endgameScore, 0, 2);
+        phase = other.phase;
+    }
+
+    public static Position fromFen(String fen) {
+        Position position = new Position();
+        position.setFen(fen);
+        return position;
+    }
+
+    //empty the board and reset all state
+    public void clear() {
+        clearPieces();
+        sideToMove = WHITE;
+        castlingRights = 0;
+        enPassantSquare = NO_SQUARE;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        ply = 0;
+        key = computeKey();
+    }
+
+    //remove every piece but keep turn and castling state, the key is left with just those so putPiece builds it back up
+    public void clearPieces() {
+        for (int color = 0; color < 2; color++) {
+            for (int type = 0; type < 6; type++) {
+                pieces[color][type] = 0L;
+            }
+            occupancy[color] = 0L;
+            middlegameScore[color] = 0;
+            endgameScore[color] = 0;
+        }
+        allPieces = 0L;
+        pawnKey = 0L;
+        phase = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            board[sq] = NO_PIECE;
+        }
+        key = computeKey();
+    }
+
+    //set up the position from a fen string, missing fields default to white to move with castling for pieces on home squares
+    public void setFen(String fen) {
+        clear();
+        String[] fields = fen.trim().split("\\s+");
+        String[] rows = fields[0].split("/");
+        if (rows.length != 8) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        for (int row = 0; row < 8; row++) {
+            int col = 0;
+            for (char c : rows[row].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += Character.getNumericValue(c);
+                } else {
+                    int type = FEN_PIECES.indexOf(Character.toLowerCase(c));
+                    if (type < 0 || col > 7) {
+                        throw new IllegalArgumentException("Invalid FEN character: " + c);
+                    }
+                    putPiece(Character.isUpperCase(c) ? WHITE : BLACK, type, square(row, col));
+                    col++;
+                }
+            }
+        }
+
+        sideToMove = fields.length > 1 && fields[1].equals("b") ? BLACK : WHITE;
+
+        if (fields.length > 2) {
+            for (char c : fields[2].toCharArray()) {
+                switch (c) {
+                    case 'K': castlingRights |= WHITE_KINGSIDE; break;
+                    case 'Q': castlingRights |= WHITE_QUEENSIDE; break;
+                    case 'k': castlingRights |= BLACK_KINGSIDE; break;
+                    case 'q': castlingRights |= BLACK_QUEENSIDE; break;
+                    default: break;
+                }
+            }
+        } else {
+            castlingRights = castlingFromPieces();
+        }
+
+        //only keep the en pasant square if a pawn can actually take there, same as makeMove
+        if (fields.length > 3 && !fields[3].equals("-")) {
+            int sq = (fields[3].charAt(0) - 'a') + 8 * (fields[3].charAt(1) - '1');
+            if ((Attacks.pawn(sideToMove ^ 1, sq) & pieces[sideToMove][PAWN]) != 0) {
+                enPassantSquare = sq;
+            }
+        }
+        if (fields.length > 4) {
+            halfmoveClock = Integer.parseInt(fields[4]);
+        }
+        if (fields.length > 5) {
+            fullmoveNumber = Integer.parseInt(fields[5]);
+        }
+        key = computeKey();
+    }
+
+    //builds the zobrist key from scratch, moves update it incrementally instead
+    public long computeKey() {
+        long hash = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = board[sq];
+            if (piece != NO_PIECE) {
+                hash ^= Zobrist.PIECES[colorOf(piece)][typeOf(piece)][sq];
+            }
+        }
+        hash ^= Zobrist.CASTLING[castlingRights];
+        if (enPassantSquare != NO_SQUARE) {
+            hash ^= Zobrist.EN_PASSANT[enPassantSquare & 7];
+        }
+        if (sideToMove == BLACK) {
+            hash ^= Zobrist.SIDE;
+        }
+        return hash;
+    }
+
+    //gives castling rights to any king and rook still on their starting squares
+    private int castlingFromPieces() {
+        int rights = 0;
+        if (board[4] == pieceCode(WHITE, KING)) {
+            if (board[7] == pieceCode(WHITE, ROOK)) rights |= WHITE_KINGSIDE;
+            if (board[0] == pieceCode(WHITE, ROOK)) rights |= WHITE_QUEENSIDE;
+        }
+        if (board[60] == pieceCode(BLACK, KING)) {
+            if (board[63] == pieceCode(BLACK, ROOK)) rights |= BLACK_KINGSIDE;
+            if (board[56] == pieceCode(BLACK, ROOK)) rights |= BLACK_QUEENSIDE;
+        }
+        return rights;
+    }
+
+    //write the position as a fen string
+    public String toFen() {
+        StringBuilder fen = new StringBuilder();
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int piece = board[square(row, col)];
+                if (piece == NO_PIECE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                char c = FEN_PIECES.charAt(typeOf(piece));
+                fen.append(colorOf(piece) == WHITE ? Character.toUpperCase(c) : c);
+            }
+            if (empty > 0) fen.append(empty);
+            if (row < 7) fen.append('/');
+        }
+        fen.append(sideToMove == WHITE ? " w " : " b ");
+        if (castlingRights == 0) fen.append('-');
+        if ((castlingRights & WHITE_KINGSIDE) != 0) fen.append('K');
+        if ((castlingRights & WHITE_QUEENSIDE) != 0) fen.append('Q');
+        if ((castlingRights & BLACK_KINGSIDE) != 0) fen.append('k');
+        if ((castlingRights & BLACK_QUEENSIDE) != 0) fen.append('q');
+        fen.append(' ').append(enPassantSquare == NO_SQUARE ? "-" : squareName(enPassantSquare));
+        fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return fen.toString();
+    }
+
+    //add a piece to the bitboards
+    public void putPiece(int color, int type, int sq) {
+        long bit = 1L << sq;
+        pieces[color][type] |= bit;
+        occupancy[color] |= bit;
+        allPieces |= bit;
+        board[sq] = pieceCode(color, type);
+        key ^= Zobrist.PIECES[color][type][sq];
+        if (type == PAWN) {
+            pawnKey ^= Zobrist.PIECES[color][PAWN][sq];
+        }
+        middlegameScore[color] += PieceSquareTables.MIDGAME[color][type][sq];
+        endgameScore[color] += PieceSquareTables.ENDGAME[color][type][sq];
+        phase += PieceSquareTables.PHASE_WEIGHTS[type];
+    }
+
+    //take a piece off the bitboards
+    public void removePiece(int sq) {
+        int piece = board[sq];
+        if (piece == NO_PIECE) return;
+        long bit = ~(1L << sq);
+        int color = colorOf(piece);
+        int type = typeOf(piece);
+        pieces[color][type] &= bit;
+        occupancy[color] &= bit;
+        allPieces &= bit;
+        board[sq] = NO_PIECE;
+        key ^= Zobrist.PIECES[color][type][sq];
+        if (type == PAWN) {
+            pawnKey ^= Zobrist.PIECES[color][PAWN][sq];
+        }
+        middlegameScore[color] -= PieceSquareTables.MIDGAME[color][type][sq];
+        endgameScore[color] -= PieceSquareTables.ENDGAME[color][type][sq];
+        phase -= PieceSquareTables.PHASE_WEIGHTS[type];
+    }
+
+    //move a piece to an empty square
+    private void movePiece(int from, int to) {
+        int piece = board[from];
+        long fromTo = (1L << from) | (1L << to);
+        int color = colorOf(piece);
+        int type = typeOf(piece);
+        pieces[color][type] ^= fromTo;
+        occupancy[color] ^= fromTo;
+        allPieces ^= fromTo;
+        board[to] = piece;
+        board[from] = NO_PIECE;
+        key ^= Zobrist.PIECES[color][type][from] ^ Zobrist.PIECES[color][type][to];
+        if (type == PAWN) {
+            pawnKey ^= Zobrist.PIECES[color][PAWN][from] ^ Zobrist.PIECES[color][PAWN][to];
+        }
+        middlegameScore[color] += PieceSquareTables.MIDGAME[color][type][to] - PieceSquareTables.MIDGAME[color][type][from];
+        endgameScore[color] += PieceSquareTables.ENDGAME[color][type][to] - PieceSquareTables.ENDGAME[color][type][from];
+    }
+
+    //plays a move, assumes the move is at least pseudo legal
+    public void makeMove(int move) {
+        int us = sideToMove;
+        int them = us ^ 1;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int promotion = Move.promotion(move);
+        int movingType = typeOf(board[from]);
+        int captured = board[to];
+        long previousKey = key;
+
+        //remove captured piece, pawn captured en pasant is behind the target square
+        if (flags == Move.EN_PASSANT) {
+            int capturedSquare = us == WHITE ? to - 8 : to + 8;
+            captured = board[capturedSquare];
+            removePiece(capturedSquare);
+        } else if (captured != NO_PIECE) {
+            removePiece(to);
+        }
+        if (ply == undoKey.length) {
+            growUndoStack();
+        }
+        undoCaptured[ply] = captured;
+        undoCastling[ply] = castlingRights;
+        undoEnPassant[ply] = enPassantSquare;
+        undoHalfmove[ply] = halfmoveClock;
+        undoKey[ply] = previousKey;
+        ply++;
+        key ^= Zobrist.CASTLING[castlingRights];
+        if (enPassantSquare != NO_SQUARE) {
+            key ^= Zobrist.EN_PASSANT[enPassantSquare & 7];
+        }
+
+        movePiece(from, to);
+
+        if (promotion != NO_PIECE) {
+            removePiece(to);
+            putPiece(us, promotion, to);
+        }
+
+        //move the rook when castling
+        if (flags == Move.CASTLING) {
+            if (to > from) {
+                movePiece(to + 1, to - 1);
+            } else {
+                movePiece(to - 2, to + 1);
+            }
+        }
+
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        key ^= Zobrist.CASTLING[castlingRights];
+
+        //en pasant square is only set when an enemy pawn can take there so equal positions get equal keys
+        enPassantSquare = NO_SQUARE;
+        if (flags == Move.DOUBLE_PAWN_PUSH) {
+            int passed = (from + to) >> 1;
+            if ((Attacks.pawn(us, passed) & pieces[them][PAWN]) != 0) {
+                enPassantSquare = passed;
+                key ^= Zobrist.EN_PASSANT[passed & 7];
+            }
+        }
+        halfmoveClock = movingType == PAWN || captured != NO_PIECE ? 0 : halfmoveClock + 1;
+        if (us == BLACK) {
+            fullmoveNumber++;
+        }
+        sideToMove = them;
+        key ^= Zobrist.SIDE;
+    }
+
+    //takes back a move played with makeMove
+    public void unmakeMove(int move) {
+        ply--;
+        sideToMove ^= 1;
+        int us = sideToMove;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+
+        if (us == BLACK) {
+            fullmoveNumber--;
+        }
+
+        //put the rook back when castling
+        if (flags == Move.CASTLING) {
+            if (to > from) {
+                movePiece(to - 1, to + 1);
+            } else {
+                movePiece(to + 1, to - 2);
+            }
+        }
+
+        if (Move.promotion(move) != NO_PIECE) {
+            removePiece(to);
+            putPiece(us, PAWN, to);
+        }
+        movePiece(to, from);
+
+        int captured = undoCaptured[ply];
+        if (captured != NO_PIECE) {
+            int capturedSquare = flags == Move.EN_PASSANT ? (us == WHITE ? to - 8 : to + 8) : to;
+            putPiece(colorOf(captured), typeOf(captured), capturedSquare);
+        }
+
+        castlingRights = undoCastling[ply];
+        enPassantSquare = undoEnPassant[ply];
+        halfmoveClock = undoHalfmove[ply];
+        key = undoKey[ply];
+    }
+
+    //passes the turn without moving, used by null move pruning
+    public void makeNullMove() {
+        if (ply == undoKey.length) {
+            growUndoStack();
+        }
+        undoCaptured[ply] = NO_PIECE;
+        undoCastling[ply] = castlingRights;
+        undoEnPassant[ply] = enPassantSquare;
+        undoHalfmove[ply] = halfmoveClock;
+        undoKey[ply] = key;
+        ply++;
+        if (enPassantSquare != NO_SQUARE) {
+            key ^= Zobrist.EN_PASSANT[enPassantSquare & 7];
+            enPassantSquare = NO_SQUARE;
+        }
+        halfmoveClock++;
+        sideToMove ^= 1;
+        key ^= Zobrist.SIDE;
+    }
+
+    public void unmakeNullMove() {
+        ply--;
+        sideToMove ^= 1;
+        enPassantSquare = undoEnPassant[ply];
+        halfmoveClock = undoHalfmove[ply];
+        key = undoKey[ply];
+    }
+
+    //only happens in very long games since the search never goes this deep
+    private void growUndoStack() {
+        int size = undoKey.length * 2;
+        undoCaptured = Arrays.copyOf(undoCaptured, size);
+        undoCastling = Arrays.copyOf(undoCastling, size);
+        undoEnPassant = Arrays.copyOf(undoEnPassant, size);
+        undoHalfmove = Arrays.copyOf(undoHalfmove, size);
+        undoKey = Arrays.copyOf(undoKey, size);
+    }
+
+    //pieces of a color that attack a square, found by looking out from the square with each piece's attack pattern
+    public long attackersTo(int sq, int color) {
+        return attackersTo(sq, color, allPieces);
+    }
+
+    //same as above but with a different set of blockers, used when pieces are taken off the board
+    public long attackersTo(int sq, int color, long occupied) {
+        long[] own = pieces[color];
+        return (Attacks.pawn(color ^ 1, sq) & own[PAWN])
+             | (Attacks.knight(sq) & own[KNIGHT])
+             | (Attacks.king(sq) & own[KING])
+             | (Attacks.bishop(sq, occupied) & (own[BISHOP] | own[QUEEN]))
+             | (Attacks.rook(sq, occupied) & (own[ROOK] | own[QUEEN]));
+    }
+
+    //checks if a square is attacked by a color
+    public boolean isSquareAttacked(int sq, int byColor) {
+        return attackersTo(sq, byColor) != 0;
+    }
+
+    //enemy pieces giving check to the side to move
+    public long checkers() {
+        return attackersTo(kingSquare(sideToMove), sideToMove ^ 1);
+    }
+
+    //checks if a colors king is attacked
+    public boolean isInCheck(int color) {
+        long king = pieces[color][KING];
+        if (king == 0) {
+            throw new IllegalStateException("King not found");
+        }
+        return isSquareAttacked(Long.numberOfTrailingZeros(king), color ^ 1);
+    }
+
+    public boolean inCheck() {
+        return isInCheck(sideToMove);
+    }
+
+    //false with only king and pawns, where passing the turn can be the best move
+    public boolean hasNonPawnMaterial(int color) {
+        return (occupancy[color] & ~pieces[color][PAWN] & ~pieces[color][KING]) != 0;
+    }
+
+    //no legal moves and in check
+    public boolean isCheckmate() {
+        return inCheck() && MoveGenerator.generateLegalMoves(this, scratchMoves) == 0;
+    }
+
+    //no legal moves and not in check
+    public boolean isStalemate() {
+        return !inCheck() && MoveGenerator.generateLegalMoves(this, scratchMoves) == 0;
+    }
+
+    //counts the leaf nodes of the move tree to check move generation
+    public long perft(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        return perft(depth, new int[depth][Move.MAX_MOVES]);
+    }
+
+    //one move buffer per level so nothing is allocated while counting
+    private long perft(int depth, int[][] buffers) {
+        int[] moves = buffers[depth - 1];
+        int count = MoveGenerator.generateLegalMoves(this, moves);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            makeMove(moves[i]);
+            nodes += perft(depth - 1, buffers);
+            unmakeMove(moves[i]);
+        }
+        return nodes;
+    }
+
+    //square helpers, row 0 is the top of the drawn board (rank 8) like in ChessBoard
+    public static int square(int row, int col) { return (7 - row) * 8 + col; }
+    public static int row(int sq) { return 7 - (sq >> 3); }
+    public static int col(int sq) { return sq & 7; }
+    public static String squareName(int sq) { return "" + (char) ('a' + (sq & 7)) + (char) ('1' + (sq >> 3)); }
+    public static int pieceCode(int color, int type) { return color * 6 + type; }
+    public static int colorOf(int piece) { return piece / 6; }
+    public static int typeOf(int piece) { return piece % 6; }
+
+    //getter methods
+    public long pieces(int color, int type) { return pieces[color][type]; }
+    public long occupancy(int color) { return occupancy[color]; }
+    public long allPieces() { return allPieces; }
+    public int pieceAt(int sq) { return board[sq]; }
+    public int kingSquare(int color) { return Long.numberOfTrailingZeros(pieces[color][KING]); }
+    public int sideToMove() { return sideToMove; }
+    public boolean isWhiteToMove() { return sideToMove == WHITE; }
+    public int castlingRights() { return castlingRights; }
+    public int enPassantSquare() { return enPassantSquare; }
+    public int halfmoveClock() { return halfmoveClock; }
+    public int fullmoveNumber() { return fullmoveNumber; }
+    public long key() { return key; }
+    public long pawnKey() { return pawnKey; }
+    public int middlegameScore(int color) { return middlegameScore[color]; }
+    public int endgameScore(int color) { return endgameScore[color]; }
+    public int phase() { return phase; }
+    public void setSideToMove(int color) { sideToMove = color; key = computeKey(); }
+    public void setCastlingRights(int castlingRights) { this.castlingRights = castlingRights; key = computeKey(); }
+    public void setEnPassantSquare(int enPassantSquare) { this.enPassantSquare = enPassantSquare; key = computeKey(); }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+}
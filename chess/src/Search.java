@@ -0,0 +1,486 @@
+/**
+ * Search.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * One search thread. Negamax with principal variation search, aspiration windows, a selective layer and a captures only
+ * search at the leaves. Every search has its own position copy, move lists, move orderer and pv table so several can run
+ * at once, the only thing they share is the transposition table. The main search is stopped by its time manager, which
+ * is only asked every few thousand nodes, and helpers are stopped by the main one.
+ *
+ */
+
+import java.util.Arrays;
+
+
+public class Search {
+    public static final int MAX_PLY = 128;
+    public static final int INFINITY = 30000;//above any score, fits in the transposition table
+    public static final int MATE = 10000;
+    private static final int ASPIRATION_DEPTH = 4;//shallow depths are too unstable for a narrow window
+    private static final int ASPIRATION_WINDOW = 25;
+    private static final int DELTA_MARGIN = 200;//captures that can't get within this of alpha are skipped
+
+    //selective search, each part can be turned off to compare depth and strength
+    private static final int NULL_MOVE_DEPTH = 3;//smallest depth null move is tried at
+    private static final int LMR_DEPTH = 3;
+    private static final int LMR_FULL_MOVES = 3;//moves searched at full depth before reducing
+    private static final int FUTILITY_DEPTH = 3;
+    private static final int FUTILITY_MARGIN = 100;//per ply of depth left
+    private static final int[] RAZOR_MARGINS = {0, 300, 500};//by depth
+    private static final int[][] LMR_REDUCTIONS = new int[64][Move.MAX_MOVES];//by depth and move number
+    static {
+        for (int depth = 1; depth < 64; depth++) {
+            for (int moveNumber = 1; moveNumber < Move.MAX_MOVES; moveNumber++) {
+                LMR_REDUCTIONS[depth][moveNumber] = (int) (0.75 + Math.log(depth) * Math.log(moveNumber) / 2.25);
+            }
+        }
+    }
+    private boolean nullMovePruning = true;
+    private boolean lateMoveReductions = true;
+    private boolean futilityPruning = true;
+    private boolean razoring = true;
+
+    private final TranspositionTable transpositionTable;
+    private Position position;//private copy of the board the search plays moves on
+    private final int[][] moveBuffers = new int[MAX_PLY][Move.MAX_MOVES];//one move list per ply so nodes allocate nothing
+    private final MoveOrderer moveOrderer = new MoveOrderer(MAX_PLY);
+    private final PawnHashTable pawnTable = new PawnHashTable();
+
+    //triangular table, row ply holds the best line found from that ply
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private final int[] previousPv = new int[MAX_PLY];//best line of the last finished depth
+    private int previousPvLength;
+    private final boolean[] followingPv = new boolean[MAX_PLY];//true while the moves so far match previousPv
+    private final boolean[] afterNullMove = new boolean[MAX_PLY];//two null moves in a row would prove nothing
+
+    private TimeManager timeManager;//null for helpers
+    private long nodeLimit;
+    private volatile boolean stopped;//set by this thread when time is up or by another thread to stop it
+
+    //results of the last finished depth
+    private int bestMove;
+    private int score;
+    private int completedDepth;
+    private int selectiveDepth;//deepest ply reached by the depth being searched, quiescence included
+
+    //stats
+    private long nodes;
+    private long leaves;
+    private long tableProbes;
+    private long tableHits;
+
+    public Search(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+    }
+
+    //switches for the selective search, all on by default
+    public void setNullMovePruning(boolean enabled) {
+        nullMovePruning = enabled;
+    }
+
+    public void setLateMoveReductions(boolean enabled) {
+        lateMoveReductions = enabled;
+    }
+
+    public void setFutilityPruning(boolean enabled) {
+        futilityPruning = enabled;
+    }
+
+    public void setRazoring(boolean enabled) {
+        razoring = enabled;
+    }
+
+    //gets ready to search a copy of the position, helpers have no time manager and run until stopped
+    public void start(Position start, TimeManager timeManager) {
+        start(start, timeManager, Long.MAX_VALUE);
+    }
+
+    //same but also stops after searching about nodeLimit positions
+    public void start(Position start, TimeManager timeManager, long nodeLimit) {
+        position = new Position(start);
+        this.timeManager = timeManager;
+        this.nodeLimit = nodeLimit;
+        stopped = false;
+        bestMove = Move.NONE;
+        score = 0;
+        completedDepth = 0;
+        previousPvLength = 0;
+        nodes = 0;
+        leaves = 0;
+        tableProbes = 0;
+        tableHits = 0;
+        pawnTable.resetStats();
+        moveOrderer.newSearch();
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    //searches one depth around the last score, results only count if it finishes before being stopped
+    public void searchDepth(int depth) {
+        selectiveDepth = 0;
+        int result = aspirationSearch(depth, score);
+        if (!stopped) {
+            score = result;
+            completedDepth = depth;
+            savePrincipalVariation();
+        }
+    }
+
+    //helpers keep deepening until stopped, starting at different depths so they don't all search the same tree
+    public void runHelper(int firstDepth) {
+        for (int depth = firstDepth; depth < MAX_PLY - 1 && !stopped; depth++) {
+            searchDepth(depth);
+        }
+    }
+
+    //searches a narrow window around the last score and widens it on the side that failed until the score fits
+    private int aspirationSearch(int depth, int previousScore) {
+        if (depth < ASPIRATION_DEPTH) {
+            return negamax(depth, 0, -INFINITY, INFINITY);
+        }
+        int window = ASPIRATION_WINDOW;
+        int alpha = Math.max(previousScore - window, -INFINITY);
+        int beta = Math.min(previousScore + window, INFINITY);
+        while (true) {
+            int score = negamax(depth, 0, alpha, beta);
+            if (stopped) {
+                return score;
+            }
+            if (score <= alpha) {
+                beta = (alpha + beta) / 2;
+                alpha = Math.max(score - window, -INFINITY);
+            } else if (score >= beta) {
+                beta = Math.min(score + window, INFINITY);
+            } else {
+                return score;
+            }
+            window *= 2;
+        }
+    }
+
+    //keeps the best line of the finished depth, its first move is played and the rest is searched first next depth
+    private void savePrincipalVariation() {
+        previousPvLength = pvLength[0];
+        System.arraycopy(pvTable[0], 0, previousPv, 0, previousPvLength);
+        if (previousPvLength > 0) {
+            bestMove = previousPv[0];
+        }
+    }
+
+    //the reply expected after the best move, what to ponder on
+    public int getPonderMove() {
+        return previousPvLength > 1 ? previousPv[1] : Move.NONE;
+    }
+
+    //best line of the last finished depth
+    public int[] getPrincipalVariationMoves() {
+        return Arrays.copyOf(previousPv, previousPvLength);
+    }
+
+    //best line of the last finished depth in long algebraic notation
+    public String getPrincipalVariation() {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < previousPvLength; i++) {
+            if (i > 0) line.append(' ');
+            line.append(Move.toString(previousPv[i]));
+        }
+        return line.toString();
+    }
+
+    //alpha beta with scores from the side to moves view, moves after the first are searched with a null window
+    //and only searched again with the full window if they turn out better
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        nodes++;
+        pvLength[ply] = ply;
+        if (ply > selectiveDepth) {
+            selectiveDepth = ply;
+        }
+        //check for time, helpers only stop when told to
+        if (stopped || checkTime()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return evaluatePosition();
+        }
+
+        //base case, captures are played out so the score isn't taken in the middle of a trade
+        if (depth <= 0) {
+            leaves++;
+            return quiescence(ply, alpha, beta);
+        }
+
+        boolean pvNode = beta - alpha > 1;
+        boolean onPreviousPv = ply == 0 || (followingPv[ply] && ply < previousPvLength);
+
+        //use the stored result if this position was already searched deep enough, not on the pv so it stays whole
+        long key = position.key();
+        long entry = transpositionTable.probe(key);
+        tableProbes++;
+        if (entry != 0) {
+            tableHits++;
+        }
+        if (entry != 0 && !pvNode && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+            int score = scoreFromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                    || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                return score;
+            }
+        }
+        int originalAlpha = alpha;
+        boolean inCheck = position.inCheck();
+        int staticEval = inCheck ? -INFINITY : evaluatePosition();
+        boolean mateWindow = Math.abs(beta) >= MATE - MAX_PLY;//pruning could hide a mate here
+
+        if (!pvNode && !inCheck && !mateWindow) {
+            //reverse futility, so far ahead that a few plies won't bring the score back under beta
+            if (futilityPruning && depth <= FUTILITY_DEPTH && staticEval - FUTILITY_MARGIN * depth >= beta) {
+                return staticEval;
+            }
+
+            //razoring, so far behind near the leaves that only captures could save it
+            if (razoring && depth < RAZOR_MARGINS.length && staticEval + RAZOR_MARGINS[depth] <= alpha) {
+                int score = quiescence(ply, alpha, alpha + 1);
+                if (score <= alpha) {
+                    return score;
+                }
+            }
+
+            //null move, if passing still beats beta a real move would too, reduced more at higher depths
+            if (nullMovePruning && depth >= NULL_MOVE_DEPTH && staticEval >= beta && !afterNullMove[ply]
+                    && position.hasNonPawnMaterial(position.sideToMove())) {
+                int reduction = 2 + depth / 6 + Math.min(3, (staticEval - beta) / 200);
+                afterNullMove[ply + 1] = true;
+                followingPv[ply + 1] = false;
+                position.makeNullMove();
+                int score = -negamax(depth - 1 - reduction, ply + 1, -beta, -beta + 1);
+                position.unmakeNullMove();
+                afterNullMove[ply + 1] = false;
+                if (stopped) return 0;
+                if (score >= beta) {
+                    return score >= MATE - MAX_PLY ? beta : score;//unproven mates aren't returned
+                }
+            }
+        }
+
+        //quiet moves that can't bring the score up to alpha are skipped near the leaves
+        boolean futile = futilityPruning && !pvNode && !inCheck && depth <= FUTILITY_DEPTH
+                && Math.abs(alpha) < MATE - MAX_PLY && staticEval + FUTILITY_MARGIN * depth <= alpha;
+
+        int[] moves = moveBuffers[ply];
+        int moveCount = MoveGenerator.generateLegalMoves(position, moves);
+
+        if (moveCount == 0) {
+            if (inCheck) {
+                return -MATE + ply;//quicker mates score higher
+            }
+            return 0; //stalemate
+        }
+
+        //last depths best line first, then the hash move, captures, killers and history
+        int hashMove = entry != 0 ? TranspositionTable.move(entry) : Move.NONE;
+        if (onPreviousPv && ply < previousPvLength) {
+            hashMove = previousPv[ply];
+        }
+        moveOrderer.scoreMoves(position, moves, moveCount, hashMove, ply);
+
+        int bestMove = Move.NONE;
+        int bestScore = -INFINITY;
+        for (int i = 0; i < moveCount; i++) {
+            int move = moveOrderer.pickMove(moves, moveCount, i, ply);
+            followingPv[ply + 1] = onPreviousPv && ply < previousPvLength && move == previousPv[ply];
+            boolean quiet = !MoveOrderer.isCapture(position, move) && Move.promotion(move) == Position.NO_PIECE;
+
+            position.makeMove(move);
+            boolean givesCheck = position.inCheck();
+            if (futile && i > 0 && quiet && !givesCheck) {
+                position.unmakeMove(move);
+                continue;
+            }
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                //late quiet moves are searched shallower first since good moves are usually ordered early
+                int reduction = 0;
+                if (lateMoveReductions && depth >= LMR_DEPTH && i >= LMR_FULL_MOVES && quiet && !inCheck && !givesCheck) {
+                    reduction = Math.min(LMR_REDUCTIONS[Math.min(depth, 63)][i], depth - 2);
+                    if (pvNode && reduction > 0) {
+                        reduction--;
+                    }
+                }
+                score = -negamax(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha);
+                if (reduction > 0 && score > alpha) {
+                    score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha);
+                }
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            position.unmakeMove(move);
+            if (stopped) return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    //opponent won't allow this line so the other moves don't matter
+                    if (alpha >= beta) {
+                        moveOrderer.recordCutoff(position, move, i, ply, depth);
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = bestScore <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                  : bestScore >= beta ? TranspositionTable.LOWER_BOUND
+                  : TranspositionTable.EXACT;
+        transpositionTable.store(key, depth, scoreToTable(bestScore, ply), bound, bestMove);
+        return bestScore;
+    }
+
+    //the line from this ply is the move followed by the best line found below it
+    private void updatePrincipalVariation(int ply, int move) {
+        pvTable[ply][ply] = move;
+        int childLength = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, childLength - ply - 1);
+        pvLength[ply] = Math.max(childLength, ply + 1);
+    }
+
+    //mate scores are stored as distance from this position so they stay right when found at another ply
+    private static int scoreToTable(int score, int ply) {
+        if (score > MATE - MAX_PLY) return score + ply;
+        if (score < -MATE + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score > MATE - MAX_PLY) return score - ply;
+        if (score < -MATE + MAX_PLY) return score + ply;
+        return score;
+    }
+
+    //reads the clock every few thousand nodes, the first depth always finishes so there is a move to play
+    private boolean checkTime() {
+        if (completedDepth > 0 && (nodes >= nodeLimit || ((nodes & (TimeManager.CHECK_INTERVAL - 1)) == 0
+                && timeManager != null && timeManager.hardLimitReached()))) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    //searches only captures until the position is quiet, scores are from the side to moves view
+    private int quiescence(int ply, int alpha, int beta) {
+        nodes++;
+        if (ply > selectiveDepth) {
+            selectiveDepth = ply;
+        }
+        if (stopped || checkTime()) {
+            return 0;
+        }
+        boolean inCheck = position.inCheck();
+        int standPat = evaluatePosition();
+        if (ply >= MAX_PLY) {
+            return standPat;
+        }
+
+        //not capturing is allowed unless in check, so the score is at least the current evaluation
+        int best = -INFINITY;
+        if (!inCheck) {
+            if (standPat >= beta) {
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+            best = standPat;
+        }
+
+        //in check every move is searched so mates are seen
+        int[] moves = moveBuffers[ply];
+        int moveCount = inCheck ? MoveGenerator.generateLegalMoves(position, moves)
+                                : MoveGenerator.generateLegalCaptures(position, moves);
+        if (inCheck && moveCount == 0) {
+            return -MATE + ply;
+        }
+        moveOrderer.scoreMoves(position, moves, moveCount, Move.NONE, ply);
+
+        for (int i = 0; i < moveCount; i++) {
+            int move = moveOrderer.pickMove(moves, moveCount, i, ply);
+            if (!inCheck) {
+                //delta pruning, even winning the piece wouldn't reach alpha
+                if (Move.promotion(move) == Position.NO_PIECE
+                        && standPat + capturedValue(move) + DELTA_MARGIN <= alpha) {
+                    continue;
+                }
+                //captures that lose material once the recaptures are done
+                if (!StaticExchange.atLeast(position, move, 0)) {
+                    continue;
+                }
+            }
+
+            position.makeMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            position.unmakeMove(move);
+            if (stopped) return 0;
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int capturedValue(int move) {
+        if (Move.flags(move) == Move.EN_PASSANT) {
+            return PieceSquareTables.PIECE_VALUES[Position.PAWN];
+        }
+        int captured = position.pieceAt(Move.to(move));
+        return captured == Position.NO_PIECE ? 0 : PieceSquareTables.PIECE_VALUES[Position.typeOf(captured)];
+    }
+
+    //material and piece square bonus from the side to moves view, Position keeps the totals up to date as moves are made
+    //pawn structure comes from the pawn hash table, it is scored from whites side so it is flipped for black
+    //the middlegame and endgame scores are blended by the phase, extra promoted pieces can push it past the max
+    int evaluatePosition() {
+        int us = position.sideToMove();
+        long pawns = pawnTable.probe(position);
+        int pawnSign = us == Position.WHITE ? 1 : -1;
+        int middlegame = position.middlegameScore(us) - position.middlegameScore(us ^ 1)
+                + pawnSign * PawnStructure.middlegame(pawns);
+        int endgame = position.endgameScore(us) - position.endgameScore(us ^ 1)
+                + pawnSign * PawnStructure.endgame(pawns);
+        int phase = Math.min(position.phase(), PieceSquareTables.MAX_PHASE);
+        return (middlegame * phase + endgame * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+    }
+
+    public int getBestMove() { return bestMove; }
+    public int getScore() { return score; }
+    public int getCompletedDepth() { return completedDepth; }
+    public int getSelectiveDepth() { return selectiveDepth; }
+    public long getNodes() { return nodes; }
+    public long getLeaves() { return leaves; }
+    public long getTableProbes() { return tableProbes; }
+    public long getTableHits() { return tableHits; }
+    public long getPawnTableProbes() { return pawnTable.getProbes(); }
+    public long getPawnTableHits() { return pawnTable.getHits(); }
+    public long getCutoffs() { return moveOrderer.getCutoffs(); }
+    public long getFirstMoveCutoffs() { return moveOrderer.getFirstMoveCutoffs(); }
+}
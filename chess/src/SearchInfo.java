@@ -0,0 +1,64 @@
+/**
+ * SearchInfo.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Progress of a running search, sent after every finished depth so a front end can show it while the search goes on.
+ * Never changes once made so it can be passed to another thread.
+ *
+ */
+
+public final class SearchInfo {
+    private final int depth;
+    private final int selectiveDepth;
+    private final int score;
+    private final long nodes;
+    private final long millis;
+    private final int hashfull;//permille of the transposition table used by this search
+    private final int[] principalVariation;
+
+    public SearchInfo(int depth, int selectiveDepth, int score, long nodes, long millis, int hashfull,
+            int[] principalVariation) {
+        this.depth = depth;
+        this.selectiveDepth = selectiveDepth;
+        this.score = score;
+        this.nodes = nodes;
+        this.millis = millis;
+        this.hashfull = hashfull;
+        this.principalVariation = principalVariation;
+    }
+
+    //true if the score is a forced mate for either side
+    public boolean isMateScore() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    //moves until mate, negative when the side to move is getting mated
+    public int getMateIn() {
+        int plies = Search.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies + 1) / 2;
+    }
+
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(1, millis);
+    }
+
+    public int getDepth() { return depth; }
+    public int getSelectiveDepth() { return selectiveDepth; }
+    public int getScore() { return score; }
+    public long getNodes() { return nodes; }
+    public long getMillis() { return millis; }
+    public int getHashfull() { return hashfull; }
+    public int[] getPrincipalVariationMoves() { return principalVariation.clone(); }
+
+    //best line in long algebraic notation
+    public String getPrincipalVariation() {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < principalVariation.length; i++) {
+            if (i > 0) line.append(' ');
+            line.append(Move.toString(principalVariation[i]));
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * SearchInfoChannel.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Carries the engine's progress from the search thread to the swing event thread. The search thread only swaps the
+ * newest SearchInfo into an atomic slot and never waits on the gui. Infos that come in before the event thread gets to
+ * them are dropped for the newest one, and at most one is handed on every MIN_INTERVAL ms so a fast search can't flood
+ * the event thread.
+ *
+ */
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+
+public class SearchInfoChannel implements Consumer<SearchInfo> {
+    private static final int MIN_INTERVAL = 100;//milliseconds between updates on the event thread
+
+    private final Consumer<SearchInfo> listener;//called on the event thread
+    private final AtomicReference<SearchInfo> latest = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();//a deliver is waiting on the event thread
+    private long lastDelivery;//only used on the event thread
+
+    public SearchInfoChannel(Consumer<SearchInfo> listener) {
+        this.listener = listener;
+    }
+
+    //search thread, replaces whatever hasn't been shown yet
+    @Override
+    public void accept(SearchInfo info) {
+        latest.set(info);
+        if (scheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::deliver);
+        }
+    }
+
+    //event thread, waits out the rest of the interval on a swing timer if the last update was too recent
+    private void deliver() {
+        long wait = lastDelivery + MIN_INTERVAL - System.currentTimeMillis();
+        if (wait > 0) {
+            Timer timer = new Timer((int) wait, e -> deliver());
+            timer.setRepeats(false);
+            timer.start();
+            return;
+        }
+        //cleared before taking the info so one coming in right now schedules another deliver instead of being lost
+        scheduled.set(false);
+        SearchInfo info = latest.getAndSet(null);
+        if (info != null) {
+            lastDelivery = System.currentTimeMillis();
+            listener.accept(info);
+        }
+    }
+}
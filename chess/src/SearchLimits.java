@@ -0,0 +1,66 @@
+/**
+ * SearchLimits.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * What stops a search: a depth, a number of nodes, a fixed time for the move or the clocks of both players. Anything not
+ * set doesn't limit the search, and a search with nothing set (or set to infinite or pondering) runs until it is stopped.
+ *
+ */
+
+public class SearchLimits {
+    private int depth = Search.MAX_PLY - 1;
+    private long nodes = Long.MAX_VALUE;
+    private long moveTime;//0 means not set
+    private final long[] timeLeft = new long[2];//by color, 0 means no clock
+    private final long[] increment = new long[2];
+    private int movesToGo;//0 means the rest of the game
+    private boolean infinite;
+    private boolean ponder;
+
+    //searches to the depth and no further
+    public static SearchLimits depth(int depth) {
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(depth);
+        return limits;
+    }
+
+    //thinks for the same time every move
+    public static SearchLimits moveTime(long millis) {
+        SearchLimits limits = new SearchLimits();
+        limits.setMoveTime(millis);
+        return limits;
+    }
+
+    //plays from the clock of the side to move
+    public static SearchLimits clock(long whiteTime, long blackTime, long whiteIncrement, long blackIncrement) {
+        SearchLimits limits = new SearchLimits();
+        limits.setTimeLeft(Position.WHITE, whiteTime);
+        limits.setTimeLeft(Position.BLACK, blackTime);
+        limits.setIncrement(Position.WHITE, whiteIncrement);
+        limits.setIncrement(Position.BLACK, blackIncrement);
+        return limits;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = Math.max(1, Math.min(depth, Search.MAX_PLY - 1));
+    }
+
+    public void setNodes(long nodes) { this.nodes = nodes; }
+    public void setMoveTime(long moveTime) { this.moveTime = moveTime; }
+    public void setTimeLeft(int color, long millis) { timeLeft[color] = millis; }
+    public void setIncrement(int color, long millis) { increment[color] = millis; }
+    public void setMovesToGo(int movesToGo) { this.movesToGo = movesToGo; }
+    public void setInfinite(boolean infinite) { this.infinite = infinite; }
+    public void setPonder(boolean ponder) { this.ponder = ponder; }
+
+    public int getDepth() { return depth; }
+    public long getNodes() { return nodes; }
+    public long getMoveTime() { return moveTime; }
+    public long getTimeLeft(int color) { return timeLeft[color]; }
+    public long getIncrement(int color) { return increment[color]; }
+    public int getMovesToGo() { return movesToGo; }
+    public boolean isInfinite() { return infinite; }
+    public boolean isPonder() { return ponder; }
+}
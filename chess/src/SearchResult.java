@@ -0,0 +1,61 @@
+/**
+ * SearchResult.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * What a finished search found: the move to play, the reply it expects, the score from the side to moves view, the
+ * depth reached and the principal variation, plus the nodes and time it took. Results never change once made so they
+ * can be handed to another thread.
+ *
+ */
+
+public final class SearchResult {
+    private final int bestMove;
+    private final int ponderMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long millis;
+    private final int[] principalVariation;
+
+    public SearchResult(int bestMove, int ponderMove, int score, int depth, long nodes, long millis,
+                        int[] principalVariation) {
+        this.bestMove = bestMove;
+        this.ponderMove = ponderMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+        this.principalVariation = principalVariation;
+    }
+
+    //nodes per second over the whole search
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(1, millis);
+    }
+
+    public int getBestMove() { return bestMove; }
+    public int getPonderMove() { return ponderMove; }
+    public int getScore() { return score; }
+    public int getDepth() { return depth; }
+    public long getNodes() { return nodes; }
+    public long getMillis() { return millis; }
+    public int[] getPrincipalVariationMoves() { return principalVariation.clone(); }
+
+    //best line in long algebraic notation
+    public String getPrincipalVariation() {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < principalVariation.length; i++) {
+            if (i > 0) line.append(' ');
+            line.append(Move.toString(principalVariation[i]));
+        }
+        return line.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "bestmove " + Move.toString(bestMove) + " depth " + depth + " score " + score + " nodes " + nodes
+                + " time " + millis + " pv " + getPrincipalVariation();
+    }
+}
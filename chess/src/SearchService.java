@@ -0,0 +1,133 @@
+/**
+ * SearchService.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Runs an Engine's searches one after another on a single long lived thread instead of a new thread per move. Each
+ * search owns the position it is given, nothing else may change it, and gives back a CompletableFuture of its result.
+ * Searches can be cancelled, which drops queued searches and ends the running one so nothing piles up when a game ends.
+ * A search is started while holding the lock that cancel and ponderHit take, so a request made just as a search begins
+ * can't be lost. The stop flags the search reads are volatile. Settings that change the engine, like the hash size, are
+ * run on the search thread between searches so they never race one.
+ *
+ * Searches on one service never overlap, on purpose. An Engine has one transposition table and one time manager that a
+ * search owns while it runs, so two searches on it would wreck each others limits and results. Extra cores go to the
+ * lazy smp helpers inside a search instead. To search positions at the same time give each one its own Engine and
+ * SearchService, every search works on its own snapshot so services never share anything.
+ *
+ */
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+
+public class SearchService {
+    private final Engine engine;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "search-service");
+        thread.setDaemon(true);//don't keep the program open
+        return thread;
+    });
+
+    //guarded by this
+    private final Deque<Task> queued = new ArrayDeque<>();
+    private Task running;
+    private boolean shutdown;
+
+    private static final class Task {
+        final Position position;
+        SearchLimits limits;//a ponder hit before the search starts swaps in the real limits
+        final CompletableFuture<SearchResult> result = new CompletableFuture<>();
+
+        Task(Position position, SearchLimits limits) {
+            this.position = position;
+            this.limits = limits;
+        }
+    }
+
+    public SearchService(Engine engine) {
+        this.engine = engine;
+    }
+
+    //queues a search of the position, which must be a snapshot the caller won't touch again, the future completes on
+    //the search thread, after shutdown it comes back already cancelled
+    public synchronized CompletableFuture<SearchResult> search(Position position, SearchLimits limits) {
+        if (shutdown) {
+            return CompletableFuture.failedFuture(new CancellationException("Search service is shut down"));
+        }
+        Task task = new Task(position, limits);
+        queued.add(task);
+        executor.execute(() -> run(task));
+        return task.result;
+    }
+
+    private void run(Task task) {
+        synchronized (this) {
+            if (!queued.remove(task) || task.result.isDone()) {
+                return;//cancelled while waiting
+            }
+            engine.start(task.position, task.limits);
+            running = task;
+        }
+        try {
+            task.result.complete(engine.run());
+        } catch (RuntimeException e) {
+            task.result.completeExceptionally(e);
+        } finally {
+            synchronized (this) {
+                running = null;
+            }
+        }
+    }
+
+    //the pondered move was played, the ponder search goes on under these limits
+    public synchronized void ponderHit(SearchLimits limits) {
+        if (running != null && running.limits.isPonder()) {
+            engine.ponderHit(limits);
+            return;
+        }
+        for (Task task : queued) {
+            if (task.limits.isPonder()) {
+                task.limits = limits;
+                return;
+            }
+        }
+    }
+
+    //drops every queued search and ends the running one, their futures are cancelled
+    public synchronized void cancelAll() {
+        for (Task task : queued) {
+            task.result.cancel(false);
+        }
+        queued.clear();
+        if (running != null) {
+            running.result.cancel(false);
+            engine.stop();
+        }
+    }
+
+    //changes the engine on the search thread once the searches queued so far are done, the future completes after it
+    public synchronized CompletableFuture<Void> configure(Consumer<Engine> change) {
+        if (shutdown) {
+            return CompletableFuture.failedFuture(new CancellationException("Search service is shut down"));
+        }
+        return CompletableFuture.runAsync(() -> change.accept(engine), executor);
+    }
+
+    //cancels everything, shuts the engine down once the running search has ended and lets the search thread end
+    public synchronized void shutdown() {
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+        cancelAll();
+        executor.execute(engine::shutdown);
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * SelectiveSearchBenchmark.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Searches a few positions to a fixed depth with each part of the selective search turned off in turn, then with all of
+ * it on and all of it off. Prints the nodes and time for each setting and how many best moves match the full width
+ * search, so the depth gained can be weighed against moves changed. Run with java SelectiveSearchBenchmark
+ *
+ */
+
+public class SelectiveSearchBenchmark {
+    private static final String[] POSITIONS = {
+        Position.START_FEN,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4",
+        "8/8/1p1k4/1P6/2PK4/8/8/8 w - - 0 1",
+    };
+    private static final int DEPTH = 7;
+
+    //null move, late move reductions, futility, razoring
+    private static final String[] NAMES = {"full width", "all on", "no null move", "no lmr", "no futility", "no razoring"};
+    private static final boolean[][] SETTINGS = {
+        {false, false, false, false},
+        {true, true, true, true},
+        {false, true, true, true},
+        {true, false, true, true},
+        {true, true, false, true},
+        {true, true, true, false},
+    };
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEPTH;
+        Engine engine = new Engine();
+        int[] fullWidthMoves = new int[POSITIONS.length];
+
+        for (int setting = 0; setting < SETTINGS.length; setting++) {
+            engine.setNullMovePruning(SETTINGS[setting][0]);
+            engine.setLateMoveReductions(SETTINGS[setting][1]);
+            engine.setFutilityPruning(SETTINGS[setting][2]);
+            engine.setRazoring(SETTINGS[setting][3]);
+
+            long totalNodes = 0;
+            long start = System.nanoTime();
+            int sameMoves = 0;
+            for (int i = 0; i < POSITIONS.length; i++) {
+                engine.clearHash();
+                int move = engine.search(Position.fromFen(POSITIONS[i]), SearchLimits.depth(depth)).getBestMove();
+                totalNodes += engine.getNodes();
+                if (setting == 0) {
+                    fullWidthMoves[i] = move;
+                }
+                if (move == fullWidthMoves[i]) {
+                    sameMoves++;
+                }
+            }
+            long millis = (System.nanoTime() - start) / 1000000;
+            System.out.printf("%-14s depth %d  nodes %11d  time %7d ms  same best move %d/%d%n", NAMES[setting], depth,
+                    totalNodes, millis, sameMoves, POSITIONS.length);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * StaticExchange.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Static exchange evaluation works out what a capture wins once both sides have traded every piece that attacks the
+ * square, cheapest piece first, without playing any moves. Pieces behind a slider that has captured are added as they
+ * come into view. Pins are ignored so it is an estimate, but good enough to skip captures that just lose material.
+ *
+ */
+
+public final class StaticExchange {
+    private static final int[] VALUES = {100, 320, 330, 500, 900, 20000};//pawn, knight, bishop, rook, queen, king
+
+    private StaticExchange() {
+    }
+
+    //true if the capture wins at least threshold centipawns after all the recaptures
+    public static boolean atLeast(Position position, int move, int threshold) {
+        //promotions, castling and en pasant are rare enough to just search
+        if (Move.promotion(move) != Position.NO_PIECE || Move.flags(move) != Move.NORMAL) {
+            return threshold <= 0;
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int captured = position.pieceAt(to);
+
+        //what we are up after taking, if its already below the threshold nothing can fix it
+        int swap = (captured == Position.NO_PIECE ? 0 : VALUES[Position.typeOf(captured)]) - threshold;
+        if (swap < 0) return false;
+        //what we are up if our piece gets taken back, if thats still enough we win
+        swap = VALUES[Position.typeOf(position.pieceAt(from))] - swap;
+        if (swap <= 0) return true;
+
+        long occupied = position.allPieces() ^ (1L << from) ^ (1L << to);
+        int side = Position.colorOf(position.pieceAt(from));
+        long diagonal = position.pieces(Position.WHITE, Position.BISHOP) | position.pieces(Position.BLACK, Position.BISHOP)
+                      | position.pieces(Position.WHITE, Position.QUEEN) | position.pieces(Position.BLACK, Position.QUEEN);
+        long straight = position.pieces(Position.WHITE, Position.ROOK) | position.pieces(Position.BLACK, Position.ROOK)
+                      | position.pieces(Position.WHITE, Position.QUEEN) | position.pieces(Position.BLACK, Position.QUEEN);
+        long attackers = position.attackersTo(to, Position.WHITE, occupied) | position.attackersTo(to, Position.BLACK, occupied);
+        int result = 1;
+
+        while (true) {
+            side ^= 1;
+            attackers &= occupied;
+            long sideAttackers = attackers & position.occupancy(side);
+            if (sideAttackers == 0) break;
+            result ^= 1;
+
+            //recapture with the cheapest piece, the king only if nothing can take it back
+            int type = Position.PAWN;
+            while (type < Position.KING && (sideAttackers & position.pieces(side, type)) == 0) {
+                type++;
+            }
+            if (type == Position.KING) {
+                return ((attackers & ~position.occupancy(side)) != 0 ? result ^ 1 : result) != 0;
+            }
+            swap = VALUES[type] - swap;
+            if (swap < result) break;
+
+            long piece = sideAttackers & position.pieces(side, type);
+            occupied ^= piece & -piece;
+            //pieces behind the one that just moved can now see the square
+            if (type == Position.PAWN || type == Position.BISHOP || type == Position.QUEEN) {
+                attackers |= Attacks.bishop(to, occupied) & diagonal;
+            }
+            if (type == Position.ROOK || type == Position.QUEEN) {
+                attackers |= Attacks.rook(to, occupied) & straight;
+            }
+        }
+        return result != 0;
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * ThreadScalingBenchmark.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Searches a few positions for a fixed time with 1, 2, 4 and so on threads up to the number of cores and prints the
+ * nodes per second, the speedup over one thread and the average depth reached, so it shows how lazy smp scales on the
+ * machine it runs on. Run with java ThreadScalingBenchmark [max threads] [miliseconds per position]
+ *
+ */
+
+public class ThreadScalingBenchmark {
+    private static final String[] POSITIONS = {
+        Position.START_FEN,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+    };
+    private static final long TIME_PER_POSITION = 3000;
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : TIME_PER_POSITION;
+        Engine engine = new Engine();
+
+        //let the jit compile the search before measuring
+        engine.search(Position.fromFen(POSITIONS[1]), SearchLimits.moveTime(millis));
+
+        double singleThreadNps = 0;
+        int threads = 1;
+        while (true) {
+            engine.setThreads(threads);
+            long totalNodes = 0;
+            int totalDepth = 0;
+            long start = System.nanoTime();
+            for (String fen : POSITIONS) {
+                engine.clearHash();
+                SearchResult result = engine.search(Position.fromFen(fen), SearchLimits.moveTime(millis));
+                totalNodes += result.getNodes();
+                totalDepth += result.getDepth();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double nps = totalNodes / seconds;
+            if (threads == 1) {
+                singleThreadNps = nps;
+            }
+            System.out.printf("threads %3d  nodes %11d  nps %10.0f  speedup %5.2fx  average depth %.2f%n", threads,
+                    totalNodes, nps, nps / singleThreadNps, (double) totalDepth / POSITIONS.length);
+            if (threads == maxThreads) {
+                break;
+            }
+            threads = Math.min(threads * 2, maxThreads);
+        }
+        engine.setThreads(1);
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * TimeManager.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Decides how long the computer thinks. From the time left on its clock, the increment and the moves to go it sets a
+ * soft limit, where no new depth is started, and a hard limit, where the search is stopped in the middle of a depth.
+ * The soft limit is stretched while the best move keeps changing and cut down once it has stayed the same for a few
+ * depths. The search only asks for the hard limit every so many nodes since reading the clock isn't free. While
+ * pondering there is no limit until the opponent plays the expected move and the clock limits are set from then.
+ *
+ */
+
+public class TimeManager {
+    public static final int CHECK_INTERVAL = 2048;//nodes between clock checks, a power of two
+    private static final int DEFAULT_MOVES_TO_GO = 30;//guess when the time control doesn't say
+    private static final long MOVE_OVERHEAD = 100;//kept back for the board to play the move and the clocks to switch
+    private static final int HARD_LIMIT_FACTOR = 4;//hard limit is this many soft limits
+    private static final int MAX_SHARE = 3;//never more than a third of what is left on one move
+
+    //percent of the soft limit used by how many depths in a row the best move has stayed the same
+    private static final int[] STABILITY_SCALE = {140, 110, 90, 75, 65};
+
+    //volatile since a ponder hit sets them from another thread while the search reads them
+    private volatile long startTime;
+    private volatile long softLimit;
+    private volatile long hardLimit;
+    private volatile boolean fixed;//fixed time per move, the whole limit is used
+    private volatile boolean stopRequested;
+
+    private int lastBestMove;
+    private int stableDepths;
+
+    //thinks for the time given on every move
+    public void startFixed(long millis) {
+        start(millis, millis, true);
+    }
+
+    //never stops by itself, for fixed depth searches and pondering until ponderHit or stop
+    public void startInfinite() {
+        start(Long.MAX_VALUE, Long.MAX_VALUE, true);
+    }
+
+    //splits the time left over the moves to go, movesToGo 0 means the whole game is played in the time
+    public void startClock(long timeLeft, long increment, int movesToGo) {
+        start(0, 0, false);
+        setClockLimits(timeLeft, increment, movesToGo);
+    }
+
+    //the opponent played the move being pondered, the search carries on with clock limits counted from now
+    public void ponderHit(long timeLeft, long increment, int movesToGo) {
+        setClockLimits(timeLeft, increment, movesToGo);
+    }
+
+    //same for a fixed time per move, the time already spent pondering counts so a long think answers at once
+    public void ponderHit(long millis) {
+        softLimit = millis;
+        fixed = true;
+        hardLimit = millis;
+    }
+
+    //stops the search at its next clock check, safe to call from any thread
+    public void stop() {
+        stopRequested = true;
+    }
+
+    private void setClockLimits(long timeLeft, long increment, int movesToGo) {
+        int moves = movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO;
+        long available = Math.max(1, timeLeft - MOVE_OVERHEAD);
+        long soft = available / moves + increment * 3 / 4;
+        long hard = Math.min(soft * HARD_LIMIT_FACTOR, available / MAX_SHARE);
+        if (movesToGo == 1) {
+            hard = available;//last move before the time control, no reason to save any
+        }
+        hard = Math.max(1, Math.min(hard, available));
+        startTime = System.currentTimeMillis();
+        softLimit = Math.min(soft, hard);
+        fixed = false;
+        hardLimit = hard;
+    }
+
+    private void start(long soft, long hard, boolean fixed) {
+        startTime = System.currentTimeMillis();
+        softLimit = soft;
+        hardLimit = hard;
+        this.fixed = fixed;
+        stopRequested = false;
+        lastBestMove = Move.NONE;
+        stableDepths = 0;
+    }
+
+    //called after every finished depth, true if there isn't time to start another one
+    public boolean depthFinished(int bestMove) {
+        if (bestMove == lastBestMove) {
+            stableDepths++;
+        } else {
+            stableDepths = 0;
+            lastBestMove = bestMove;
+        }
+        long elapsed = elapsed();
+        if (stopRequested) {
+            return true;
+        }
+        if (fixed) {
+            return elapsed >= hardLimit;
+        }
+        int scale = STABILITY_SCALE[Math.min(stableDepths, STABILITY_SCALE.length - 1)];
+        return elapsed >= Math.min(softLimit * scale / 100, hardLimit);
+    }
+
+    public boolean hardLimitReached() {
+        return stopRequested || elapsed() >= hardLimit;
+    }
+
+    public long elapsed() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    public long getSoftLimit() { return softLimit; }
+    public long getHardLimit() { return hardLimit; }
+}
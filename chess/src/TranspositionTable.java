@@ -0,0 +1,140 @@
+/**
+ * TranspositionTable.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Fixed size hash table of searched positions indexed by zobrist key. Entries sit in buckets of four and the one to replace
+ * is picked by depth and how many searches ago it was written, so the table can be kept for the whole game.
+ *
+ * Several search threads use the table at once without locks. Each slot keeps the data and the key xored with the data,
+ * so if two threads write the same slot at the same time and the two longs come from different writes the key check
+ * fails and the entry is treated as missing instead of giving a wrong result.
+ *
+ */
+
+import java.util.Arrays;
+
+
+public class TranspositionTable {
+    //what the stored score means
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;//search failed high, real score is at least this
+    public static final int UPPER_BOUND = 2;//search failed low, real score is at most this
+
+    private static final int BUCKET_SIZE = 4;
+    private static final int ENTRY_BYTES = 16;//one long for the key and one for the data
+    private static final long VALID = 1L << 63;
+    private static final int HASHFULL_SAMPLE = 1000;
+
+    private long[] keys;
+    private long[] data;
+    private int bucketMask;
+    private int age;
+
+    public TranspositionTable(int megabytes) {
+        resize(megabytes);
+    }
+
+    //rounds down to a power of two number of buckets so the index is a mask
+    public void resize(int megabytes) {
+        long entries = Math.max(BUCKET_SIZE, (long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+        int buckets = Integer.highestOneBit((int) Math.min(entries / BUCKET_SIZE, 1 << 26));
+        keys = new long[buckets * BUCKET_SIZE];
+        data = new long[buckets * BUCKET_SIZE];
+        bucketMask = buckets - 1;
+        age = 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+        age = 0;
+    }
+
+    //called once per search so old entries get replaced first
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    //returns the packed entry for the key or 0 if it isn't stored, the data is read once so the check and the result match
+    public long probe(long key) {
+        int first = bucketIndex(key);
+        for (int i = first; i < first + BUCKET_SIZE; i++) {
+            long entry = data[i];
+            if (entry != 0 && (keys[i] ^ entry) == key) {
+                return entry;
+            }
+        }
+        return 0L;
+    }
+
+    public void store(long key, int depth, int score, int bound, int move) {
+        int first = bucketIndex(key);
+        int replace = first;
+        int lowestPriority = Integer.MAX_VALUE;
+        for (int i = first; i < first + BUCKET_SIZE; i++) {
+            long entry = data[i];
+            if (entry == 0 || (keys[i] ^ entry) == key) {
+                replace = i;
+                break;
+            }
+            //deep entries from this search are kept, shallow or old ones go first
+            int priority = depth(entry) - 8 * ((age - age(entry)) & 0xFF);
+            if (priority < lowestPriority) {
+                lowestPriority = priority;
+                replace = i;
+            }
+        }
+
+        long old = data[replace];
+        if (old != 0 && (keys[replace] ^ old) == key) {
+            //keep the old best move if this search didn't find one
+            if (move == 0) {
+                move = move(old);
+            }
+            //don't overwrite a deeper result for the same position unless it is exact
+            if (bound != EXACT && depth < depth(old) - 2 && age(old) == age) {
+                return;
+            }
+        }
+
+        long entry = pack(depth, score, bound, move);
+        keys[replace] = key ^ entry;
+        data[replace] = entry;
+    }
+
+    //how full the table is in permille, guessed from the first thousand slots and only counting this searches entries
+    public int hashfull() {
+        int sample = Math.min(HASHFULL_SAMPLE, data.length);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long entry = data[i];
+            if (entry != 0 && age(entry) == age) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    private long pack(int depth, int score, int bound, int move) {
+        score = Math.max(-32767, Math.min(32767, score));
+        return VALID
+             | (move & 0xFFFFFL)
+             | ((long) (score + 32768) << 20)
+             | ((long) (Math.max(0, Math.min(255, depth))) << 36)
+             | ((long) bound << 44)
+             | ((long) age << 46);
+    }
+
+    //read fields out of a packed entry
+    public static int move(long entry) { return (int) (entry & 0xFFFFF); }
+    public static int score(long entry) { return (int) ((entry >>> 20) & 0xFFFF) - 32768; }
+    public static int depth(long entry) { return (int) ((entry >>> 36) & 0xFF); }
+    public static int bound(long entry) { return (int) ((entry >>> 44) & 3); }
+    private static int age(long entry) { return (int) ((entry >>> 46) & 0xFF); }
+
+    private int bucketIndex(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_SIZE;
+    }
+}
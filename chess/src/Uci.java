@@ -0,0 +1,258 @@
+/**
+ * Uci.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Lets the engine be played by any chess program that speaks UCI, like tournament managers or analysis guis, through
+ * standard in and out. This thread only reads commands, every go is searched on a separate search thread so stop and
+ * ponderhit are read and passed on while the search runs. Sends an info line after every finished depth and the
+ * bestmove when the search ends. Run with java Uci
+ *
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+public class Uci {
+    private static final String NAME = "KDestroyer";
+    private static final String AUTHOR = "Divyam Banga";
+    private static final int MAX_HASH_SIZE = 4096;//megabytes
+    private static final int MAX_THREADS = 256;
+
+    private final Engine engine = new Engine();
+    private final ExecutorService searchThread = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "uci-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Position position = Position.fromFen(Position.START_FEN);
+    private Future<?> search;
+    private SearchLimits limits;
+    //infinite and ponder searches hold their bestmove until stop or ponderhit even if they finish early
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    public Uci() {
+        engine.setInfoListener(this::sendInfo);
+    }
+
+    //reads commands until quit or the end of input
+    public void run(BufferedReader input) throws IOException {
+        String line;
+        while ((line = input.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] tokens = line.split("\\s+");
+            switch (tokens[0]) {
+                case "uci":
+                    send("id name " + NAME);
+                    send("id author " + AUTHOR);
+                    send("option name Hash type spin default " + Engine.DEFAULT_HASH_SIZE + " min 1 max " + MAX_HASH_SIZE);
+                    send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                    send("option name Ponder type check default false");
+                    send("uciok");
+                    break;
+                case "isready":
+                    send("readyok");
+                    break;
+                case "setoption":
+                    setOption(tokens);
+                    break;
+                case "ucinewgame":
+                    stopSearch();
+                    engine.clearHash();
+                    break;
+                case "position":
+                    stopSearch();
+                    setPosition(tokens);
+                    break;
+                case "go":
+                    stopSearch();
+                    go(tokens);
+                    break;
+                case "stop":
+                    engine.stop();
+                    release.countDown();
+                    break;
+                case "ponderhit":
+                    engine.ponderHit(limits);
+                    if (limits != null && !limits.isInfinite()) {
+                        release.countDown();
+                    }
+                    break;
+                case "quit":
+                    stopSearch();
+                    return;
+                default:
+                    send("info string unknown command " + tokens[0]);
+            }
+        }
+        stopSearch();
+    }
+
+    //setoption name Hash value 128, names can have spaces so everything between name and value is the name
+    private void setOption(String[] tokens) {
+        StringBuilder name = new StringBuilder();
+        String value = null;
+        int i = 1;
+        if (i < tokens.length && tokens[i].equals("name")) {
+            i++;
+        }
+        for (; i < tokens.length && !tokens[i].equals("value"); i++) {
+            if (name.length() > 0) name.append(' ');
+            name.append(tokens[i]);
+        }
+        if (i + 1 < tokens.length) {
+            value = tokens[i + 1];
+        }
+        stopSearch();
+        try {
+            switch (name.toString().toLowerCase()) {
+                case "hash":
+                    engine.setHashSize(clamp(Integer.parseInt(value), 1, MAX_HASH_SIZE));
+                    break;
+                case "threads":
+                    engine.setThreads(clamp(Integer.parseInt(value), 1, MAX_THREADS));
+                    break;
+                case "ponder":
+                    break;//go ponder is all that is needed
+                default:
+                    send("info string unknown option " + name);
+            }
+        } catch (NumberFormatException e) {
+            send("info string bad value " + value + " for " + name);
+        }
+    }
+
+    //position startpos moves e2e4 e7e5 or position fen <fen> moves ...
+    private void setPosition(String[] tokens) {
+        int i = 1;
+        Position next;
+        if (i < tokens.length && tokens[i].equals("startpos")) {
+            next = Position.fromFen(Position.START_FEN);
+            i++;
+        } else if (i < tokens.length && tokens[i].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (i++; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                if (fen.length() > 0) fen.append(' ');
+                fen.append(tokens[i]);
+            }
+            try {
+                next = Position.fromFen(fen.toString());
+            } catch (RuntimeException e) {
+                send("info string bad fen " + fen);
+                return;
+            }
+        } else {
+            send("info string position needs startpos or fen");
+            return;
+        }
+        if (i < tokens.length && tokens[i].equals("moves")) {
+            for (i++; i < tokens.length; i++) {
+                int move = MoveGenerator.parseMove(next, tokens[i]);
+                if (move == Move.NONE) {
+                    send("info string illegal move " + tokens[i]);
+                    break;
+                }
+                next.makeMove(move);
+            }
+        }
+        position = next;
+    }
+
+    //reads the limits and hands the search to the search thread, returns straight away
+    private void go(String[] tokens) {
+        SearchLimits next = new SearchLimits();
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                switch (tokens[i]) {
+                    case "wtime": next.setTimeLeft(Position.WHITE, Long.parseLong(tokens[++i])); break;
+                    case "btime": next.setTimeLeft(Position.BLACK, Long.parseLong(tokens[++i])); break;
+                    case "winc": next.setIncrement(Position.WHITE, Long.parseLong(tokens[++i])); break;
+                    case "binc": next.setIncrement(Position.BLACK, Long.parseLong(tokens[++i])); break;
+                    case "movestogo": next.setMovesToGo(Integer.parseInt(tokens[++i])); break;
+                    case "depth": next.setDepth(Integer.parseInt(tokens[++i])); break;
+                    case "nodes": next.setNodes(Long.parseLong(tokens[++i])); break;
+                    case "movetime": next.setMoveTime(Long.parseLong(tokens[++i])); break;
+                    case "infinite": next.setInfinite(true); break;
+                    case "ponder": next.setPonder(true); break;
+                    default: break;//searchmoves and mate aren't supported, the search just runs normally
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            send("info string bad go command");
+            return;
+        }
+        limits = next;
+        release = new CountDownLatch(next.isInfinite() || next.isPonder() ? 1 : 0);
+        CountDownLatch hold = release;
+        //started here so a stop or ponderhit read right after go always reaches this search
+        engine.start(position, next);
+        search = searchThread.submit(() -> {
+            SearchResult result = engine.run();
+            try {
+                hold.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sendBestMove(result);
+        });
+    }
+
+    //stops any search and waits the moment it takes to end, so the next command sees a quiet engine
+    private void stopSearch() {
+        if (search == null) {
+            return;
+        }
+        engine.stop();
+        release.countDown();
+        try {
+            search.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            send("info string search failed " + e.getCause());
+        }
+        search = null;
+    }
+
+    private void sendInfo(SearchInfo info) {
+        String score = info.isMateScore() ? "mate " + info.getMateIn() : "cp " + info.getScore();
+        send("info depth " + info.getDepth() + " seldepth " + info.getSelectiveDepth() + " score " + score + " nodes "
+                + info.getNodes() + " nps " + info.getNodesPerSecond() + " hashfull " + info.getHashfull() + " time "
+                + info.getMillis() + " pv " + info.getPrincipalVariation());
+    }
+
+    private void sendBestMove(SearchResult result) {
+        int best = result.getBestMove();
+        if (best == Move.NONE) {
+            send("bestmove 0000");//no legal moves
+        } else if (result.getPonderMove() != Move.NONE) {
+            send("bestmove " + Move.toString(best) + " ponder " + Move.toString(result.getPonderMove()));
+        } else {
+            send("bestmove " + Move.toString(best));
+        }
+    }
+
+    //both threads write here, println is synchronized so lines never mix
+    private static void send(String line) {
+        System.out.println(line);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(value, max));
+    }
+
+    public static void main(String[] args) throws IOException {
+        new Uci().run(new BufferedReader(new InputStreamReader(System.in)));
+    }
+}
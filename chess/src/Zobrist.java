@@ -0,0 +1,47 @@
+/**
+ * Zobrist.java
+ *
+ * Divyam Banga
+ * ICS4U, Mr. Mckenzie
+ *
+ * Random 64 bit keys for every piece on every square, castling rights, en pasant file and side to move. A position's
+ * hash is the xor of the keys for everything in it, so Position can update it with a few xors per move.
+ *
+ */
+
+public final class Zobrist {
+    static final long[][][] PIECES = new long[2][6][64];
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT = new long[8];
+    static final long SIDE;
+
+    private static long seed = 0x9E3779B97F4A7C15L;//fixed so keys are the same every run
+
+    static {
+        for (int color = 0; color < 2; color++) {
+            for (int type = 0; type < 6; type++) {
+                for (int sq = 0; sq < 64; sq++) {
+                    PIECES[color][type][sq] = nextRandom();
+                }
+            }
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            CASTLING[rights] = nextRandom();
+        }
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT[file] = nextRandom();
+        }
+        SIDE = nextRandom();
+    }
+
+    private Zobrist() {
+    }
+
+    //xorshift random numbers
+    private static long nextRandom() {
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 2685821657736338717L;
+    }
+}